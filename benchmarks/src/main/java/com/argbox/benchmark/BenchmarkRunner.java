@@ -0,0 +1,25 @@
+package com.argbox.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the ArgBox benchmarks with the GC profiler enabled, so the allocation
+ * rate and the bytes allocated per operation are reported next to the timings.
+ * The usual JMH command line options are accepted, e.g. a benchmark regex or
+ * "-p size=1000".
+ */
+public class BenchmarkRunner {
+
+	public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+		new Runner(new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.argbox.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link com.argbox.ArgBox#getHelp()} and
+ * {@link com.argbox.ArgBox#isHelpNeeded(String...)}, the latter on a command
+ * line of matching size with the help call last.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelpBenchmark {
+
+	@Benchmark
+	public String getHelp(final SpecState state) {
+		return state.argBox.getHelp();
+	}
+
+	@Benchmark
+	public boolean isHelpNeeded(final SpecState state) {
+		return state.argBox.isHelpNeeded(state.helpLastLine);
+	}
+
+	@Benchmark
+	public boolean isHelpNotNeeded(final SpecState state) {
+		return state.argBox.isHelpNeeded(state.valuesLine);
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.argbox.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.argbox.ArgBox;
+import com.argbox.exception.ArgBoxException;
+
+/**
+ * Measures the registration of a whole spec of {@link SpecState#size}
+ * arguments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegisterBenchmark {
+
+	@Benchmark
+	public ArgBox register(final SpecState state) throws ArgBoxException {
+		return SpecState.newArgBox(state.size);
+	}
+
+}
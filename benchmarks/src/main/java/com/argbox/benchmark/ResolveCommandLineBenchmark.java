@@ -0,0 +1,56 @@
+package com.argbox.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.argbox.ParsedCommandLine;
+import com.argbox.exception.ArgBoxException;
+
+/**
+ * Measures {@link com.argbox.ArgBox#resolveCommandLine(boolean, String...)}
+ * on command lines made of flags, of valued arguments, of leftovers and of
+ * values failing their validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveCommandLineBenchmark {
+
+	@Benchmark
+	public ParsedCommandLine flags(final SpecState state) throws ArgBoxException {
+		state.argBox.resolveCommandLine(state.flagsLine);
+		return state.argBox.getParsedCommandLine();
+	}
+
+	@Benchmark
+	public ParsedCommandLine values(final SpecState state) throws ArgBoxException {
+		state.argBox.resolveCommandLine(state.valuesLine);
+		return state.argBox.getParsedCommandLine();
+	}
+
+	@Benchmark
+	public ParsedCommandLine leftovers(final SpecState state) throws ArgBoxException {
+		state.argBox.resolveCommandLine(false, state.leftoversLine);
+		return state.argBox.getParsedCommandLine();
+	}
+
+	@Benchmark
+	public ArgBoxException failingValidation(final SpecState state) {
+		try {
+			state.argBox.resolveCommandLine(state.invalidValuesLine);
+		} catch (final ArgBoxException e) {
+			return e;
+		}
+		throw new IllegalStateException("The validation should have failed.");
+	}
+
+}
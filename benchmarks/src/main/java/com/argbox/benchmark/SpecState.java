@@ -0,0 +1,98 @@
+package com.argbox.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.argbox.ArgBox;
+import com.argbox.exception.ArgBoxException;
+
+/**
+ * Shared benchmark state : an ArgBox holding {@link #size} generated arguments
+ * and command lines of matching size. Even arguments are flags, odd arguments
+ * require a value starting with "ok".
+ */
+@State(Scope.Benchmark)
+public class SpecState {
+
+	static final Predicate<String> VALIDATOR = value -> value.startsWith("ok");
+
+	@Param({ "10", "1000", "10000" })
+	public int size;
+
+	ArgBox argBox;
+
+	String[] flagsLine;
+
+	String[] valuesLine;
+
+	String[] leftoversLine;
+
+	String[] invalidValuesLine;
+
+	String[] helpLastLine;
+
+	@Setup(Level.Trial)
+	public void setUp() throws ArgBoxException {
+		argBox = newArgBox(size);
+		final List<String> flags = new ArrayList<>();
+		final List<String> values = new ArrayList<>();
+		final List<String> leftovers = new ArrayList<>();
+		final List<String> invalidValues = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			if (isFlag(i)) {
+				flags.add(longCall(i));
+				leftovers.add("leftover" + i);
+			} else {
+				values.add(longCall(i));
+				values.add("ok" + i);
+				invalidValues.add(shortCall(i));
+				invalidValues.add("ko" + i);
+			}
+		}
+		flagsLine = flags.toArray(new String[0]);
+		valuesLine = values.toArray(new String[0]);
+		leftoversLine = leftovers.toArray(new String[0]);
+		invalidValuesLine = invalidValues.toArray(new String[0]);
+		final List<String> helpLast = new ArrayList<>(values);
+		helpLast.add("--help");
+		helpLastLine = helpLast.toArray(new String[0]);
+	}
+
+	/**
+	 * Builds an ArgBox registering the given number of generated arguments.
+	 *
+	 * @param size
+	 *            The number of arguments to register.
+	 * @return The ArgBox.
+	 * @throws ArgBoxException
+	 *             If the registration fails.
+	 */
+	static ArgBox newArgBox(final int size) throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		for (int i = 0; i < size; i++) {
+			argBox.register("Arg" + i, shortCall(i), longCall(i), "Generated argument number " + i + ".", false,
+					isFlag(i), VALIDATOR);
+		}
+		return argBox;
+	}
+
+	static boolean isFlag(final int index) {
+		return (index % 2) == 0;
+	}
+
+	static String shortCall(final int index) {
+		return "-a" + index;
+	}
+
+	static String longCall(final int index) {
+		return "--argument" + index;
+	}
+
+}
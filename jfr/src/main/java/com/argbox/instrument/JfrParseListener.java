@@ -0,0 +1,92 @@
+package com.argbox.instrument;
+
+import java.time.Duration;
+
+import com.argbox.model.Argument;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A {@link ParseListener} emitting JDK Flight Recorder events : one per parse
+ * phase, and one per validator running longer than a threshold. The events
+ * are only built when they are enabled in the recording.
+ * <p>
+ * This listener lives in the ArgBox-jfr module, built for Java 11, since the
+ * jdk.jfr API does not exist in the Java 8 platform targeted by ArgBox itself.
+ */
+public class JfrParseListener implements ParseListener {
+
+	private final long slowValidatorNanos;
+
+	/**
+	 * @param slowValidatorThreshold
+	 *            How long a validator must run to be recorded.
+	 */
+	public JfrParseListener(final Duration slowValidatorThreshold) {
+		slowValidatorNanos = slowValidatorThreshold.toNanos();
+	}
+
+	@Override
+	public void phaseCompleted(final ParsePhase phase, final long durationNanos) {
+		final ParsePhaseEvent event = new ParsePhaseEvent();
+		if (event.isEnabled()) {
+			event.phase = phase.name();
+			event.phaseDuration = durationNanos;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void validatorCompleted(final Argument argument, final long durationNanos, final boolean valid) {
+		if (durationNanos >= slowValidatorNanos) {
+			final SlowValidatorEvent event = new SlowValidatorEvent();
+			if (event.isEnabled()) {
+				event.argument = argument.getArgName();
+				event.validatorDuration = durationNanos;
+				event.valid = valid;
+				event.commit();
+			}
+		}
+	}
+
+	@Name("com.argbox.ParsePhase")
+	@Label("Parse Phase")
+	@Category("ArgBox")
+	@Description("A phase of a command line parse")
+	@StackTrace(false)
+	static class ParsePhaseEvent extends Event {
+
+		@Label("Phase")
+		String phase;
+
+		@Label("Phase Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long phaseDuration;
+
+	}
+
+	@Name("com.argbox.SlowValidator")
+	@Label("Slow Validator")
+	@Category("ArgBox")
+	@Description("A validator running longer than the threshold of the listener")
+	static class SlowValidatorEvent extends Event {
+
+		@Label("Argument")
+		String argument;
+
+		@Label("Validator Duration")
+		@Timespan(Timespan.NANOSECONDS)
+		long validatorDuration;
+
+		@Label("Valid")
+		boolean valid;
+
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.argbox.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a field, or a record component, to an argument of the command line. For
+ * each class holding such fields, the ArgBox annotation processor generates a
+ * parser class named after it with an ArgParser suffix, in the same package.
+ * <p>
+ * A boolean field is a flag : it is true when its call is on the command line.
+ * The other supported types are String, int, long, double, their wrappers,
+ * java.nio.file.Path and the enums. The fields of a class must not be private
+ * nor final, and the class needs a no-argument constructor. A record is built
+ * with its canonical constructor. As in an ArgBox, the calls -hlp and --help
+ * are reserved for the help.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Arg {
+
+	/**
+	 * @return The short version of this argument on the command line.
+	 */
+	String shortCall();
+
+	/**
+	 * @return The long version of this argument on the command line.
+	 */
+	String longCall();
+
+	/**
+	 * @return True is this argument is mandatory on the command line.
+	 */
+	boolean mandatory() default false;
+
+	/**
+	 * @return The help line to display if the user calls for help.
+	 */
+	String help() default "";
+
+	/**
+	 * @return The name for this argument, the field name by default.
+	 */
+	String name() default "";
+
+}
@@ -0,0 +1,512 @@
+package com.argbox.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.argbox.annotation.Arg;
+
+/**
+ * Generates, for each class holding {@link Arg} fields, a parser class with a
+ * switch over the call strings, the conversion code of each field and the help
+ * manual as a constant. The generated parsers use no reflection and do not
+ * scan any argument at runtime, which suits short-lived processes and native
+ * images.
+ */
+@SupportedAnnotationTypes("com.argbox.annotation.Arg")
+public class ArgProcessor extends AbstractProcessor {
+
+	private static final String PARSER_SUFFIX = "ArgParser";
+
+	private static final String HELP_SHORT_CALL = "-hlp";
+
+	private static final String HELP_LONG_CALL = "--help";
+
+	/**
+	 * The help entry of the HELP argument, as written by an ArgBox.
+	 */
+	private static final String HELP_ENTRY = "- HELP : " + HELP_SHORT_CALL + " | " + HELP_LONG_CALL + "\n"
+			+ "If present on the command line, the program will print out the help manual and exit. #helpception\n"
+			+ "This argument is not mandatory on the command line.\n\n";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+		final Map<TypeElement, List<VariableElement>> fieldsByType = new LinkedHashMap<>();
+		for (final Element element : roundEnv.getElementsAnnotatedWith(Arg.class)) {
+			if ((element.getKind() == ElementKind.FIELD)
+					&& (element.getEnclosingElement() instanceof TypeElement)) {
+				fieldsByType.putIfAbsent((TypeElement) element.getEnclosingElement(), new ArrayList<>());
+			}
+		}
+		for (final TypeElement type : fieldsByType.keySet()) {
+			final List<BoundField> fields = new ArrayList<>();
+			boolean valid = checkType(type);
+			final Set<String> calls = new HashSet<>();
+			calls.add(HELP_SHORT_CALL);
+			calls.add(HELP_LONG_CALL);
+			for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				if (field.getModifiers().contains(Modifier.STATIC)) {
+					continue;
+				}
+				final BoundField boundField = bind(type, field, calls);
+				valid &= (null != boundField) || (null == field.getAnnotation(Arg.class));
+				fields.add(boundField);
+			}
+			if (valid) {
+				write(type, fields);
+			}
+		}
+		return true;
+	}
+
+	private boolean checkType(final TypeElement type) {
+		if ((type.getNestingKind() != NestingKind.TOP_LEVEL) && !type.getModifiers().contains(Modifier.STATIC)
+				&& !isRecord(type)) {
+			error(type, "A class holding @Arg fields must be a top level or static class.");
+			return false;
+		}
+		if (!isRecord(type)) {
+			for (final ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+				if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+					return true;
+				}
+			}
+			error(type, "A class holding @Arg fields needs a non private constructor without arguments.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the @Arg annotation of a field.
+	 *
+	 * @param type
+	 *            The class holding the field.
+	 * @param field
+	 *            The field.
+	 * @param calls
+	 *            The calls already used by the class.
+	 * @return The bound field, or null if the field has no @Arg annotation or an
+	 *         invalid one.
+	 */
+	private BoundField bind(final TypeElement type, final VariableElement field, final Set<String> calls) {
+		final Arg arg = field.getAnnotation(Arg.class);
+		if (null == arg) {
+			return null;
+		}
+		final Set<Modifier> modifiers = field.getModifiers();
+		if (!isRecord(type) && (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL))) {
+			error(field, "An @Arg field must not be private nor final.");
+			return null;
+		}
+		if (!arg.shortCall().startsWith("-") || !arg.longCall().startsWith("--")) {
+			error(field, "The shortCall must start with '-' and the longCall with '--'.");
+			return null;
+		}
+		if (!calls.add(arg.shortCall()) || !calls.add(arg.longCall())) {
+			error(field, "The calls of this argument are already used by another @Arg field or by the help.");
+			return null;
+		}
+		final BoundField boundField = new BoundField(field, arg);
+		if (null == boundField.kind) {
+			error(field, "Unsupported @Arg field type " + field.asType() + ".");
+			return null;
+		}
+		return boundField;
+	}
+
+	private void write(final TypeElement type, final List<BoundField> fields) {
+		final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+		final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+		final String parserName = getParserName(type, packageName);
+		final String qualifiedParserName = packageName.isEmpty() ? parserName : packageName + "." + parserName;
+		final String typeName = type.getQualifiedName().toString();
+		final SourceBuilder source = new SourceBuilder();
+		if (!packageName.isEmpty()) {
+			source.line("package " + packageName + ";").line();
+		}
+		source.line("/**")
+				.line(" * Parser of {@link " + typeName + "}, generated by the ArgBox annotation processor.")
+				.line(" */")
+				.open("public final class " + parserName)
+				.line()
+				.line("public static final String HELP = " + literal(buildHelp(fields)) + ";")
+				.line()
+				.open("private " + parserName + "()").close()
+				.line();
+		writeIsHelpNeeded(source);
+		writeParse(source, type, typeName, fields);
+		source.close();
+		try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedParserName, type).openWriter()) {
+			writer.write(source.toString());
+		} catch (final IOException e) {
+			error(type, "Cannot write " + qualifiedParserName + " : " + e.getMessage());
+		}
+	}
+
+	private void writeIsHelpNeeded(final SourceBuilder source) {
+		source.line("/**")
+				.line(" * @param args")
+				.line(" *            The whole command line.")
+				.line(" * @return True if " + HELP_SHORT_CALL + " or " + HELP_LONG_CALL + " is on the command line.")
+				.line(" */")
+				.open("public static boolean isHelpNeeded(final String... args)")
+				.open("if (null != args)")
+				.open("for (final String arg : args)")
+				.open("if (" + literal(HELP_SHORT_CALL) + ".equals(arg) || " + literal(HELP_LONG_CALL) + ".equals(arg))")
+				.line("return true;")
+				.close().close().close()
+				.line("return false;")
+				.close()
+				.line();
+	}
+
+	private void writeParse(final SourceBuilder source, final TypeElement type, final String typeName,
+			final List<BoundField> fields) {
+		source.line("/**")
+				.line(" * Parses the command line, checks the mandatory arguments and converts the values.")
+				.line(" * Like the help of an ArgBox, " + HELP_SHORT_CALL + " and " + HELP_LONG_CALL
+						+ " make the rest of the command line")
+				.line(" * irrelevant : nothing is checked, and an object holding the default values is returned.")
+				.line(" *")
+				.line(" * @param args")
+				.line(" *            The whole command line.")
+				.line(" * @return The bound object.")
+				.line(" * @throws com.argbox.exception.ArgBoxException")
+				.line(" *             If a problem or more are detected on the command line.")
+				.line(" */")
+				.open("public static " + typeName + " parse(final String... args)"
+						+ " throws com.argbox.exception.ArgBoxException")
+				.open("if (isHelpNeeded(args))")
+				.line("return " + (isRecord(type) ? newRecord(type, fields, false) : "new " + typeName + "()") + ";")
+				.close()
+				.line("final java.util.List<String> errors = new java.util.ArrayList<>();");
+		for (int i = 0; i < fields.size(); i++) {
+			final BoundField field = fields.get(i);
+			if (null != field) {
+				source.line("boolean present" + i + " = false;");
+				if (field.kind != Kind.FLAG) {
+					source.line("String value" + i + " = null;");
+				}
+			}
+		}
+		source.open("if (null != args)")
+				.open("for (int i = 0; i < args.length; i++)")
+				.line("final String arg = args[i];")
+				.open("switch (arg)");
+		for (int i = 0; i < fields.size(); i++) {
+			final BoundField field = fields.get(i);
+			if (null == field) {
+				continue;
+			}
+			source.line("case " + literal(field.arg.shortCall()) + ":")
+					.line("case " + literal(field.arg.longCall()) + ":")
+					.line("\tpresent" + i + " = true;");
+			if (field.kind != Kind.FLAG) {
+				source.line("\tif ((i + 1) < args.length) {")
+						.line("\t\tvalue" + i + " = args[++i];")
+						.line("\t} else {")
+						.line("\t\terrors.add(\"The argument \" + arg + \" has no value !\");")
+						.line("\t}");
+			}
+			source.line("\tbreak;");
+		}
+		source.line("default:")
+				.line("\terrors.add(\"The argument \" + arg + \" was not used.\");")
+				.close().close().close();
+		for (int i = 0; i < fields.size(); i++) {
+			final BoundField field = fields.get(i);
+			if ((null != field) && field.arg.mandatory()) {
+				source.open("if (!present" + i + ")")
+						.line("errors.add(" + literal("The argument " + field.arg.longCall() + " is required !") + ");")
+						.close();
+			}
+		}
+		for (int i = 0; i < fields.size(); i++) {
+			final BoundField field = fields.get(i);
+			if (null != field) {
+				writeConversion(source, field, i);
+			}
+		}
+		source.open("if (!errors.isEmpty())")
+				.line("throw new com.argbox.exception.ArgBoxException(\"The command line is invalid !\", errors);")
+				.close();
+		if (isRecord(type)) {
+			source.line("return " + newRecord(type, fields, true) + ";");
+		} else {
+			source.line("final " + typeName + " result = new " + typeName + "();");
+			for (int i = 0; i < fields.size(); i++) {
+				final BoundField field = fields.get(i);
+				if (null != field) {
+					source.open("if (present" + i + ")")
+							.line("result." + field.element.getSimpleName() + " = converted" + i + ";")
+							.close();
+				}
+			}
+			source.line("return result;");
+		}
+		source.close();
+	}
+
+	/**
+	 * @param converted
+	 *            True to pass the converted values of the bound components, false
+	 *            to pass default values only.
+	 * @return The call to the canonical constructor of a record.
+	 */
+	private static String newRecord(final TypeElement type, final List<BoundField> fields, final boolean converted) {
+		final List<String> constructorArguments = new ArrayList<>();
+		final List<VariableElement> components = new ArrayList<>();
+		for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+			if (!field.getModifiers().contains(Modifier.STATIC)) {
+				components.add(field);
+			}
+		}
+		for (int i = 0; i < components.size(); i++) {
+			constructorArguments.add(!converted || (null == fields.get(i)) ? defaultValue(components.get(i).asType())
+					: "converted" + i);
+		}
+		return "new " + type.getQualifiedName() + "(" + String.join(", ", constructorArguments) + ")";
+	}
+
+	private void writeConversion(final SourceBuilder source, final BoundField field, final int i) {
+		final String fieldType = field.element.asType().toString();
+		if (field.kind == Kind.FLAG) {
+			source.line("final " + fieldType + " converted" + i + " = present" + i + ";");
+			return;
+		}
+		source.line(fieldType + " converted" + i + " = " + defaultValue(field.element.asType()) + ";");
+		final String invalid = "errors.add(\"The value \" + value" + i + " + "
+				+ literal(" for the argument " + field.arg.longCall() + " is not valid !") + ");";
+		source.open("if (null != value" + i + ")");
+		switch (field.kind) {
+		case STRING:
+			source.line("converted" + i + " = value" + i + ";");
+			break;
+		case ENUM:
+			source.open("for (final " + fieldType + " constant : " + fieldType + ".values())")
+					.open("if (constant.name().equalsIgnoreCase(value" + i + "))")
+					.line("converted" + i + " = constant;")
+					.close().close()
+					.open("if (null == converted" + i + ")")
+					.line(invalid)
+					.close();
+			break;
+		default:
+			source.open("try")
+					.line("converted" + i + " = " + field.kind.conversion + "(value" + i + ");")
+					.close("} catch (final IllegalArgumentException e) {")
+					.line(invalid)
+					.close();
+		}
+		source.close();
+	}
+
+	private String buildHelp(final List<BoundField> fields) {
+		final StringBuilder help = new StringBuilder("HELP MANUAL\n\n").append(HELP_ENTRY);
+		for (final BoundField field : fields) {
+			if (null == field) {
+				continue;
+			}
+			help.append("- ").append(field.argName)
+					.append(" : ").append(field.arg.shortCall())
+					.append(" | ").append(field.arg.longCall())
+					.append('\n')
+					.append(field.arg.help()).append('\n')
+					.append(field.arg.mandatory() ? "This argument is mandatory on the command line.\n"
+							: "This argument is not mandatory on the command line.\n");
+			if (field.kind == Kind.FLAG) {
+				help.append("This argument has no value. If a value is present, it will be ignored.\n");
+			}
+			help.append('\n');
+		}
+		return help.toString();
+	}
+
+	private static String getParserName(final TypeElement type, final String packageName) {
+		final String qualifiedName = type.getQualifiedName().toString();
+		final String relativeName = packageName.isEmpty() ? qualifiedName
+				: qualifiedName.substring(packageName.length() + 1);
+		return relativeName.replace('.', '_') + PARSER_SUFFIX;
+	}
+
+	private static String defaultValue(final TypeMirror type) {
+		switch (type.getKind()) {
+		case BOOLEAN:
+			return "false";
+		case INT:
+			return "0";
+		case LONG:
+			return "0L";
+		case DOUBLE:
+			return "0.0";
+		case FLOAT:
+			return "0.0f";
+		case CHAR:
+			return "'\\0'";
+		case SHORT:
+		case BYTE:
+			// Not redundant : a constructor argument is never narrowed.
+			return "(" + type + ") 0";
+		default:
+			return "null";
+		}
+	}
+
+	/**
+	 * Records are detected by name, as the processor targets JVMs without them.
+	 */
+	private static boolean isRecord(final TypeElement type) {
+		return "RECORD".equals(type.getKind().name());
+	}
+
+	private static String literal(final String value) {
+		final StringBuilder literal = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				literal.append("\\\"");
+				break;
+			case '\\':
+				literal.append("\\\\");
+				break;
+			case '\n':
+				literal.append("\\n");
+				break;
+			case '\r':
+				literal.append("\\r");
+				break;
+			case '\t':
+				literal.append("\\t");
+				break;
+			default:
+				if ((c < ' ') || (c > '~')) {
+					literal.append(String.format("\\u%04x", (int) c));
+				} else {
+					literal.append(c);
+				}
+			}
+		}
+		return literal.append('"').toString();
+	}
+
+	private void error(final Element element, final String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+	}
+
+	/**
+	 * The kinds of supported field types, with their conversion method.
+	 */
+	private enum Kind {
+
+		STRING(null),
+
+		FLAG(null),
+
+		INT("Integer.parseInt"),
+
+		LONG("Long.parseLong"),
+
+		DOUBLE("Double.parseDouble"),
+
+		PATH("java.nio.file.Paths.get"),
+
+		ENUM(null);
+
+		private final String conversion;
+
+		Kind(final String conversion) {
+			this.conversion = conversion;
+		}
+
+	}
+
+	/**
+	 * A field bound to an argument.
+	 */
+	private static class BoundField {
+
+		private final VariableElement element;
+
+		private final Arg arg;
+
+		private final String argName;
+
+		private final Kind kind;
+
+		BoundField(final VariableElement element, final Arg arg) {
+			this.element = element;
+			this.arg = arg;
+			argName = arg.name().isEmpty() ? element.getSimpleName().toString() : arg.name();
+			kind = kindOf(element.asType());
+		}
+
+		private static Kind kindOf(final TypeMirror type) {
+			switch (type.getKind()) {
+			case BOOLEAN:
+				return Kind.FLAG;
+			case INT:
+				return Kind.INT;
+			case LONG:
+				return Kind.LONG;
+			case DOUBLE:
+				return Kind.DOUBLE;
+			case DECLARED:
+				break;
+			default:
+				return null;
+			}
+			final Element typeElement = ((DeclaredType) type).asElement();
+			if (typeElement.getKind() == ElementKind.ENUM) {
+				return Kind.ENUM;
+			}
+			switch (((TypeElement) typeElement).getQualifiedName().toString()) {
+			case "java.lang.String":
+				return Kind.STRING;
+			case "java.lang.Boolean":
+				return Kind.FLAG;
+			case "java.lang.Integer":
+				return Kind.INT;
+			case "java.lang.Long":
+				return Kind.LONG;
+			case "java.lang.Double":
+				return Kind.DOUBLE;
+			case "java.nio.file.Path":
+				return Kind.PATH;
+			default:
+				return null;
+			}
+		}
+
+	}
+
+}
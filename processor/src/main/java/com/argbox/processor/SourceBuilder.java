@@ -0,0 +1,59 @@
+package com.argbox.processor;
+
+/**
+ * Builds indented Java source code, one line at a time.
+ */
+class SourceBuilder {
+
+	private final StringBuilder source = new StringBuilder();
+
+	private int indentation;
+
+	SourceBuilder line() {
+		source.append('\n');
+		return this;
+	}
+
+	SourceBuilder line(final String line) {
+		for (int i = 0; i < indentation; i++) {
+			source.append('\t');
+		}
+		source.append(line).append('\n');
+		return this;
+	}
+
+	/**
+	 * Writes a line opening a block, then indents the following lines.
+	 */
+	SourceBuilder open(final String line) {
+		line(line + " {");
+		indentation++;
+		return this;
+	}
+
+	/**
+	 * Closes the current block.
+	 */
+	SourceBuilder close() {
+		return close("}");
+	}
+
+	/**
+	 * Closes the current block with the given line, like "} else {", which then
+	 * opens a new block if it ends with a brace.
+	 */
+	SourceBuilder close(final String line) {
+		indentation--;
+		line(line);
+		if (line.endsWith("{")) {
+			indentation++;
+		}
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return source.toString();
+	}
+
+}
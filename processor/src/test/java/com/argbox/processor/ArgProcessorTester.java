@@ -0,0 +1,102 @@
+package com.argbox.processor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import com.argbox.exception.ArgBoxException;
+
+import junit.framework.Assert;
+
+public class ArgProcessorTester {
+
+	private static final String OPTIONS_SOURCE = "package demo;\n"
+			+ "import com.argbox.annotation.Arg;\n"
+			+ "public class Options {\n"
+			+ "\t@Arg(shortCall = \"-nm\", longCall = \"--name\", mandatory = true, help = \"This is the name.\")\n"
+			+ "\tpublic String name;\n"
+			+ "\t@Arg(shortCall = \"-ag\", longCall = \"--age\", help = \"This is the age.\")\n"
+			+ "\tpublic int age;\n"
+			+ "\t@Arg(shortCall = \"-sz\", longCall = \"--size\", help = \"This is the size.\")\n"
+			+ "\tpublic long size;\n"
+			+ "\t@Arg(shortCall = \"-rt\", longCall = \"--ratio\", help = \"This is the ratio.\")\n"
+			+ "\tpublic double ratio;\n"
+			+ "\t@Arg(shortCall = \"-v\", longCall = \"--verbose\", help = \"Flag to trigger verbose mode.\")\n"
+			+ "\tpublic boolean verbose;\n"
+			+ "}\n";
+
+	@Test
+	public void testGeneratedParser() throws Exception {
+		final Path root = Files.createTempDirectory("argbox-processor");
+		final Path sourceFile = root.resolve("src").resolve("demo").resolve("Options.java");
+		Files.createDirectories(sourceFile.getParent());
+		Files.write(sourceFile, OPTIONS_SOURCE.getBytes(StandardCharsets.UTF_8));
+		final Path classes = Files.createDirectories(root.resolve("classes"));
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		final StringWriter diagnostics = new StringWriter();
+		final boolean compiled = compiler.getTask(diagnostics, null, null,
+				Arrays.asList("-Xlint:all", "-Werror", "-proc:only", "-processor", ArgProcessor.class.getName(),
+						"-classpath", System.getProperty("java.class.path"), "-s",
+						Files.createDirectories(root.resolve("generated")).toString(), "-d", classes.toString()),
+				null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(sourceFile.toFile()))
+				.call();
+		Assert.assertTrue(diagnostics.toString(), compiled);
+		final Path parserFile = root.resolve("generated").resolve("demo").resolve("OptionsArgParser.java");
+		Assert.assertTrue(Files.isRegularFile(parserFile));
+		// The generated code must compile without any lint warning, like redundant casts.
+		compile(compiler, classes, sourceFile.toFile(), parserFile.toFile());
+
+		try (URLClassLoader loader = new URLClassLoader(new URL[] { classes.toUri().toURL() },
+				getClass().getClassLoader())) {
+			final Class<?> parser = loader.loadClass("demo.OptionsArgParser");
+			final Method parse = parser.getMethod("parse", String[].class);
+			final Object options = parse.invoke(null, (Object) new String[] { "--name", "Bob", "-ag", "42", "-v" });
+			final Class<?> optionsType = options.getClass();
+			Assert.assertEquals("Bob", optionsType.getDeclaredField("name").get(options));
+			Assert.assertEquals(42, optionsType.getDeclaredField("age").getInt(options));
+			Assert.assertEquals(0L, optionsType.getDeclaredField("size").getLong(options));
+			Assert.assertTrue(optionsType.getDeclaredField("verbose").getBoolean(options));
+
+			final String help = (String) parser.getField("HELP").get(null);
+			Assert.assertTrue(help.startsWith("HELP MANUAL\n\n- HELP : -hlp | --help\n"));
+			Assert.assertTrue(help.contains("- name : -nm | --name\nThis is the name.\n"));
+			Assert.assertEquals(Boolean.TRUE, parser.getMethod("isHelpNeeded", String[].class).invoke(null,
+					(Object) new String[] { "--help" }));
+			// The help makes the rest of the command line irrelevant, the mandatory name included.
+			Assert.assertNull(optionsType.getDeclaredField("name")
+					.get(parse.invoke(null, (Object) new String[] { "-hlp", "--unknown" })));
+			try {
+				parse.invoke(null, (Object) new String[] { "--age", "old" });
+				Assert.fail("The command line should have been rejected.");
+			} catch (final InvocationTargetException e) {
+				Assert.assertEquals(Arrays.asList("The command line is invalid !", "The argument --name is required !",
+						"The value old for the argument --age is not valid !"),
+						((ArgBoxException) e.getCause()).getErrors());
+			}
+		}
+	}
+
+	private static void compile(final JavaCompiler compiler, final Path classes, final File... files)
+			throws IOException {
+		final StringWriter diagnostics = new StringWriter();
+		final boolean compiled = compiler.getTask(diagnostics, null, null,
+				Arrays.asList("-Xlint:all", "-Xlint:-options", "-Werror", "-proc:none", "-classpath",
+						System.getProperty("java.class.path"), "-d", classes.toString()),
+				null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(files)).call();
+		Assert.assertTrue(diagnostics.toString(), compiled);
+	}
+
+}
@@ -1,30 +1,42 @@
 package com.argbox;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BooleanSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import com.argbox.exception.ArgBoxException;
+import com.argbox.instrument.ParseListener;
 import com.argbox.model.Argument;
-import com.argbox.model.ParsedArgument;
+import com.argbox.model.Positional;
+import com.argbox.model.Subcommand;
 
 /**
  * ArgBox is a class able to register, validate and manage your program
  * arguments. Its purpose is to be the simplest and most dynamic argument
  * manager possible, so you can focus on your program and not argument
  * management.
+ * <p>
+ * The register methods can be called concurrently, by modules loading in
+ * parallel for instance : the names and calls are reserved atomically, without
+ * any lock, so two arguments can never share one. Once every module is loaded,
+ * {@link #freeze()} fixes the order of the arguments and compiles them.
  */
 public class ArgBox {
 
@@ -43,23 +55,70 @@ public class ArgBox {
 
 	private static final String MUST_START_WITH_MSG = "[%1$s] %2$s must start with '%3$s' !";
 
+	private static final String FROZEN_MSG = "The arguments are frozen, nothing more can be registered !";
+
+	/**
+	 * The priority of the arguments registered without one.
+	 */
+	public static final int DEFAULT_PRIORITY = 0;
+
+	/**
+	 * All the arguments created by the working program with the register methods,
+	 * in registration order, before parsing the command line.
+	 */
+	private final Queue<Registration> registeredArguments = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The reservations of the short and long calls. An argument is only added to
+	 * {@link #registeredArguments} once its name and calls are reserved.
+	 */
+	private final ConcurrentMap<String, Argument> argumentsByCall = new ConcurrentHashMap<>();
+
+	/**
+	 * The reservations of the argument names.
+	 */
+	private final ConcurrentMap<String, Argument> argumentsByName = new ConcurrentHashMap<>();
+
+	/**
+	 * The positional values of the command line, or null if none are registered.
+	 */
+	private final AtomicReference<Positional> positional = new AtomicReference<>();
+
 	/**
-	 * The map that will contain the parsed command line. Keys are the argument long
-	 * calls and values are the values passed to those arguments.
+	 * The subcommands, by name.
 	 */
-	private final Map<Argument, ParsedArgument> parsedArguments = new LinkedHashMap<>();
+	private final ConcurrentMap<String, Subcommand> subcommands = new ConcurrentHashMap<>();
 
 	/**
-	 * Set containing all the arguments created by the working program with the
-	 * register methods, before parsing the command line.
+	 * The subcommands, in registration order.
 	 */
-	private final Set<Argument> registeredArguments = new LinkedHashSet<>();
+	private final Queue<Subcommand> registeredSubcommands = new ConcurrentLinkedQueue<>();
 
 	/**
-	 * List of String arguments on the command line that were not consumed by the
-	 * registered arguments.
+	 * True once {@link #freeze()} is called.
 	 */
-	private final List<String> leftovers = new ArrayList<>();
+	private volatile boolean frozen;
+
+	/**
+	 * Counts the registrations and option changes, so a compiled spec older than
+	 * the last of them is never returned.
+	 */
+	private final AtomicLong modificationCount = new AtomicLong();
+
+	/**
+	 * The last compiled spec, built on demand.
+	 */
+	private volatile Compilation compilation;
+
+	/**
+	 * The result of the last successful {@link #resolveCommandLine(boolean, String...)}.
+	 */
+	private ParsedCommandLine parsedCommandLine;
+
+	/**
+	 * The parsing options, copied into each compiled spec.
+	 */
+	private final ParseOptions options = new ParseOptions();
 
 	private final String[] args;
 
@@ -69,8 +128,9 @@ public class ArgBox {
 	public ArgBox(final String... args) {
 		try {
 			this.args = args;
-			register("HELP", HELP_SHORT_CALL, HELP_LONG_CALL,
-					"If present on the command line, the program will print out the help manual and exit. #helpception");
+			register(new Argument("HELP", HELP_SHORT_CALL, HELP_LONG_CALL,
+					"If present on the command line, the program will print out the help manual and exit. #helpception",
+					false, false, DEFAULT_VALIDATOR, true));
 		} catch (final ArgBoxException e) {
 			throw new IllegalArgumentException(e);
 		}
@@ -95,35 +155,282 @@ public class ArgBox {
 	 * @param validator
 	 *            A Predicate<String> providing some logical validation rule that
 	 *            needs to be true for this argument's value to be a valid one.
+	 *            Wrap an expensive validator in a
+	 *            {@link com.argbox.validation.CachedValidator} so repeated values
+	 *            skip it.
 	 * @throws ArgBoxException
 	 */
 	public void register(final String argName, final String shortCall, final String longCall, final String helpLine,
 			final boolean mandatory, final boolean valueNotRequired, final Predicate<String> validator)
 			throws ArgBoxException {
-		String message = "At least one of these parameters is null or empty : argName, shortCall, longCall, helpLine.";
-		throwException(() -> StringUtils.isAnyBlank(argName, shortCall, longCall, helpLine),
-				getArgBoxExceptionSupplier(message));
+		register(new Argument(argName, shortCall, longCall, helpLine, mandatory, valueNotRequired,
+				null == validator ? DEFAULT_VALIDATOR : validator));
+	}
+
+	/**
+	 * Registers a short-circuit argument : a flag, like help or version, whose
+	 * presence on the command line makes the rest of it irrelevant. When such an
+	 * argument is found, {@link #resolveCommandLine(boolean, String...)} stops
+	 * before checking mandatory arguments, values and leftovers.
+	 *
+	 * @param argName
+	 *            The name for this argument.
+	 * @param shortCall
+	 *            The short version of this argument on the command line.
+	 * @param longCall
+	 *            The long version of this argument on the command line.
+	 * @param helpLine
+	 *            The help line to display if the user calls for help.
+	 * @throws ArgBoxException
+	 */
+	public void registerShortCircuit(final String argName, final String shortCall, final String longCall,
+			final String helpLine) throws ArgBoxException {
+		register(new Argument(argName, shortCall, longCall, helpLine, false, true, DEFAULT_VALIDATOR, true));
+	}
+
+	/**
+	 * Registers an already built argument, a {@link com.argbox.model.TypedArgument}
+	 * for instance. A null validator always validates the value.
+	 *
+	 * @param argument
+	 *            The argument to register.
+	 * @throws ArgBoxException
+	 *             If the argument is incomplete or collides with a registered one.
+	 */
+	public void register(final Argument argument) throws ArgBoxException {
+		register(argument, DEFAULT_PRIORITY);
+	}
+
+	/**
+	 * Registers an already built argument with a priority, like the priority of
+	 * the module registering it. Once frozen, the arguments of higher priority
+	 * come first. See {@link #freeze()}.
+	 *
+	 * @param argument
+	 *            The argument to register.
+	 * @param priority
+	 *            The priority of the argument.
+	 * @throws ArgBoxException
+	 *             If the arguments are frozen, or the argument is incomplete or
+	 *             collides with a registered one.
+	 */
+	public void register(final Argument argument, final int priority) throws ArgBoxException {
+		throwException(() -> frozen, () -> new ArgBoxException(FROZEN_MSG));
+		final List<String> violations = new ArrayList<>(0);
+		if (checkArgument(argument, violations) && reserve(argument, violations) && !violations.isEmpty()) {
+			// The calls are malformed : the argument must not keep its reservations.
+			release(argument);
+		}
+		throwException(() -> !violations.isEmpty(), () -> new ArgBoxException(violations.get(0)));
+		index(argument, priority);
+	}
+
+	/**
+	 * Registers the positional values of the command line : the tokens that are
+	 * neither a call nor the value of an argument, and do not start with '-'
+	 * unless they are "-" alone. The positional values beyond the max arity are
+	 * neither collected nor streamed, and make the command line invalid, as does
+	 * a command line with less values than the min arity.
+	 *
+	 * @param positional
+	 *            The positional values, streamed to their consumer if any.
+	 * @throws ArgBoxException
+	 *             If the positional values are incomplete, their arity is
+	 *             invalid, or positional values are already registered.
+	 */
+	public void registerPositional(final Positional positional) throws ArgBoxException {
+		throwException(() -> frozen, () -> new ArgBoxException(FROZEN_MSG));
+		throwException(() -> StringUtils.isAnyBlank(positional.getName(), positional.getHelpLine()),
+				() -> new ArgBoxException("At least one of these parameters is null or empty : name, helpLine."));
+		throwException(() -> (positional.getMinArity() < 0) || (positional.getMinArity() > positional.getMaxArity()),
+				() -> new ArgBoxException(String.format("The arity of %1$s must be between 0 and its max arity !",
+						positional.getName())));
+		throwException(() -> !this.positional.compareAndSet(null, positional),
+				() -> new ArgBoxException("Positional values have already been registered !"));
+		invalidate();
+	}
 
-		message = String.format(MUST_START_WITH_MSG, argName, "shortCall", "-");
-		throwException(() -> !shortCall.startsWith("-"), getArgBoxExceptionSupplier(message));
+	/**
+	 * Registers a subcommand, git-style : a token naming it, before any positional
+	 * value, selects its arguments for the rest of the command line, on top of the
+	 * arguments registered here, which it inherits. The ArgBox of the subcommand
+	 * is only supplied when the subcommand is met on a command line, so the cost
+	 * of a parse only depends on the subcommand invoked.
+	 *
+	 * @param subcommand
+	 *            The subcommand.
+	 * @throws ArgBoxException
+	 *             If the arguments are frozen, the subcommand is incomplete, its
+	 *             name starts with '-', or a subcommand with the same name is
+	 *             already registered.
+	 */
+	public void registerSubcommand(final Subcommand subcommand) throws ArgBoxException {
+		throwException(() -> frozen, () -> new ArgBoxException(FROZEN_MSG));
+		throwException(() -> StringUtils.isAnyBlank(subcommand.getName(), subcommand.getHelpLine())
+				|| (null == subcommand.getArgBoxSupplier()), () -> new ArgBoxException(
+						"At least one of these parameters is null or empty : name, helpLine, argBoxSupplier."));
+		throwException(() -> subcommand.getName().startsWith("-"),
+				() -> new ArgBoxException(String.format("The subcommand %1$s must not start with '-' !",
+						subcommand.getName())));
+		throwException(() -> null != subcommands.putIfAbsent(subcommand.getName(), subcommand),
+				() -> new ArgBoxException(String.format("A subcommand named %1$s has already been registered !",
+						subcommand.getName())));
+		registeredSubcommands.add(subcommand);
+		invalidate();
+	}
 
-		message = String.format(MUST_START_WITH_MSG, argName, "longCall", "--");
-		throwException(() -> !longCall.startsWith("--"), getArgBoxExceptionSupplier(message));
+	/**
+	 * Registers a whole batch of already built arguments, like a generated spec.
+	 * The batch is checked in a single pass, against the registered arguments and
+	 * against itself. Either every argument is registered, or none is and every
+	 * violation is reported in the exception.
+	 *
+	 * @param arguments
+	 *            The arguments to register, in registration order.
+	 * @throws ArgBoxException
+	 *             If the arguments are frozen, or some arguments are incomplete or
+	 *             collide with other ones.
+	 */
+	public void registerAll(final Collection<? extends Argument> arguments) throws ArgBoxException {
+		registerAll(arguments, DEFAULT_PRIORITY);
+	}
 
-		message = String.format("An argument named %1$s has already been registered !", argName);
-		throwException(() -> registeredArguments.stream().anyMatch(arg -> arg.getArgName().equals(argName)),
-				getArgBoxExceptionSupplier(message));
+	/**
+	 * Registers a whole batch of already built arguments with a priority, like
+	 * the priority of the module registering them. See
+	 * {@link #registerAll(Collection)} and {@link #freeze()}.
+	 *
+	 * @param arguments
+	 *            The arguments to register, in registration order.
+	 * @param priority
+	 *            The priority of the arguments.
+	 * @throws ArgBoxException
+	 *             If the arguments are frozen, or some arguments are incomplete or
+	 *             collide with other ones.
+	 */
+	public void registerAll(final Collection<? extends Argument> arguments, final int priority)
+			throws ArgBoxException {
+		throwException(() -> frozen, () -> new ArgBoxException(FROZEN_MSG));
+		final List<Argument> reserved = new ArrayList<>(arguments.size());
+		final List<String> violations = new ArrayList<>(0);
+		for (final Argument argument : arguments) {
+			if (checkArgument(argument, violations) && reserve(argument, violations)) {
+				reserved.add(argument);
+			}
+		}
+		if (!violations.isEmpty()) {
+			reserved.forEach(this::release);
+		}
+		throwException(() -> !violations.isEmpty(),
+				getArgBoxExceptionSupplier("Some arguments cannot be registered !", violations));
+		arguments.forEach(argument -> index(argument, priority));
+	}
+
+	/**
+	 * Checks that an argument is complete and that its calls are well formed.
+	 * The error messages are only formatted when a violation is found.
+	 *
+	 * @param argument
+	 *            The argument to check.
+	 * @param violations
+	 *            Where to add the error messages.
+	 * @return False if the argument is incomplete.
+	 */
+	private boolean checkArgument(final Argument argument, final List<String> violations) {
+		final String argName = argument.getArgName();
+		if (StringUtils.isAnyBlank(argName, argument.getShortCall(), argument.getLongCall(),
+				argument.getHelpLine())) {
+			violations.add(
+					"At least one of these parameters is null or empty : argName, shortCall, longCall, helpLine.");
+			return false;
+		}
+		if (!argument.getShortCall().startsWith("-")) {
+			violations.add(String.format(MUST_START_WITH_MSG, argName, "shortCall", "-"));
+		}
+		if (!argument.getLongCall().startsWith("--")) {
+			violations.add(String.format(MUST_START_WITH_MSG, argName, "longCall", "--"));
+		}
+		return true;
+	}
+
+	/**
+	 * Reserves the name and the calls of an argument, each one atomically, so
+	 * concurrent registrations never share one. If one of them is already taken,
+	 * the ones reserved here are released.
+	 *
+	 * @param argument
+	 *            The complete argument to reserve.
+	 * @param violations
+	 *            Where to add the error messages.
+	 * @return True if the name and the calls of the argument are all reserved.
+	 */
+	private boolean reserve(final Argument argument, final List<String> violations) {
+		final String argName = argument.getArgName();
+		final String shortCall = argument.getShortCall();
+		final String longCall = argument.getLongCall();
+		final boolean nameReserved = null == argumentsByName.putIfAbsent(argName, argument);
+		if (!nameReserved) {
+			violations.add(String.format("An argument named %1$s has already been registered !", argName));
+		}
+		final boolean shortCallReserved = null == argumentsByCall.putIfAbsent(shortCall, argument);
+		if (!shortCallReserved) {
+			violations.add(
+					String.format("An argument using the shortCall %1$s has already been registered !", shortCall));
+		}
+		final boolean longCallReserved = longCall.equals(shortCall)
+				|| (null == argumentsByCall.putIfAbsent(longCall, argument));
+		if (!longCallReserved) {
+			violations.add(
+					String.format("An argument using the longCall %1$s has already been registered !", longCall));
+		}
+		if (nameReserved && shortCallReserved && longCallReserved) {
+			return true;
+		}
+		// Only the reservations made here are released : an equal argument may hold the others.
+		if (nameReserved) {
+			argumentsByName.remove(argName);
+		}
+		if (shortCallReserved) {
+			argumentsByCall.remove(shortCall);
+		}
+		if (longCallReserved && !longCall.equals(shortCall)) {
+			argumentsByCall.remove(longCall);
+		}
+		return false;
+	}
 
-		message = String.format("An argument using the shortCall %1$s has already been registered !", shortCall);
-		throwException(() -> registeredArguments.stream().anyMatch(arg -> arg.getShortCall().equals(shortCall)),
-				getArgBoxExceptionSupplier(message));
+	/**
+	 * Releases the name and the calls reserved by an argument of a rejected
+	 * batch.
+	 *
+	 * @param argument
+	 *            The reserved argument.
+	 */
+	private void release(final Argument argument) {
+		argumentsByName.remove(argument.getArgName());
+		argumentsByCall.remove(argument.getShortCall());
+		argumentsByCall.remove(argument.getLongCall());
+	}
 
-		message = String.format("An argument using the longCall %1$s has already been registered !", longCall);
-		throwException(() -> registeredArguments.stream().anyMatch(arg -> arg.getLongCall().equals(longCall)),
-				getArgBoxExceptionSupplier(message));
+	/**
+	 * Adds a reserved argument to the registered arguments.
+	 *
+	 * @param argument
+	 *            The argument to add.
+	 * @param priority
+	 *            The priority of the argument.
+	 */
+	private void index(final Argument argument, final int priority) {
+		registeredArguments.add(new Registration(argument, priority));
+		invalidate();
+	}
 
-		registeredArguments.add(new Argument(argName, shortCall, longCall, helpLine, mandatory, valueNotRequired,
-				null == validator ? DEFAULT_VALIDATOR : validator));
+	/**
+	 * Drops the compiled spec, so the next {@link #compile()} takes the last
+	 * registrations and options into account.
+	 */
+	private void invalidate() {
+		modificationCount.incrementAndGet();
 	}
 
 	public void register(final String argName, final String shortCall, final String longCall, final String helpLine,
@@ -141,18 +448,6 @@ public class ArgBox {
 		register(argName, shortCall, longCall, helpLine, false, false, DEFAULT_VALIDATOR);
 	}
 
-	/**
-	 * Calls {@link #getArgBoxExceptionSupplier(String, List)} with no errors in the
-	 * second argument.
-	 *
-	 * @param message
-	 *            See {@link #getArgBoxExceptionSupplier(String, List)}.
-	 * @return The exception Supplier.
-	 */
-	private Supplier<ArgBoxException> getArgBoxExceptionSupplier(final String message) {
-		return () -> new ArgBoxException(message);
-	}
-
 	/**
 	 * Provides an {@link ArgBoxException} Supplier for a message and error list.
 	 *
@@ -169,20 +464,41 @@ public class ArgBox {
 	/**
 	 * Returns true if the HELP argument is present on the command line. Call this
 	 * method before parsing the command line, so you know if you need to print out
-	 * help and exit or parse the whole command line.
+	 * help and exit or parse the whole command line. Only whole tokens are
+	 * compared, and the scan stops at the first match.
 	 *
 	 * @param args
 	 *            The whole command line.
 	 * @return True is the help has been asked, false otherwise.
 	 */
 	public boolean isHelpNeeded(final String... args) {
-		return StringUtils.containsAny(StringUtils.join(args), HELP_SHORT_CALL, HELP_LONG_CALL);
+		if (null != args) {
+			for (final String arg : args) {
+				if (HELP_SHORT_CALL.equals(arg) || HELP_LONG_CALL.equals(arg)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the first short-circuit argument on the command line, like help or
+	 * version. See {@link ArgSpec#findShortCircuitArgument(String...)}.
+	 *
+	 * @param args
+	 *            The whole command line.
+	 * @return The first short-circuit argument found, or null if there is none.
+	 */
+	public Argument findShortCircuitArgument(final String... args) {
+		return compile().findShortCircuitArgument(args);
 	}
 
 	/**
 	 * Resolves the command line by parsing the different arguments, listing lef
 	 * over strings, checking if the mandatory arguments are all there, and
-	 * validating all the values.
+	 * validating all the values. The parsing is delegated to the compiled
+	 * {@link ArgSpec}, see {@link #compile()}.
 	 *
 	 * @param forbidLeftovers
 	 *            Indicates if useless arguments are allowed on the command line.
@@ -192,23 +508,7 @@ public class ArgBox {
 	 *             If a problem or more are detected on the command line.
 	 */
 	public void resolveCommandLine(final boolean forbidLeftovers, final String... args) throws ArgBoxException {
-		if ((args != null) && (args.length > 0)) {
-			final Iterator<String> it = Arrays.asList(args).iterator();
-			while (it.hasNext()) {
-				final String argString = it.next();
-				final Argument argument = resolveArgument(argString);
-				if (null == argument) {
-					leftovers.add(argString);
-				} else if (argument.isValueRequired() && it.hasNext()) {
-					parsedArguments.put(argument, new ParsedArgument(argument, argString, it.next()));
-				} else {
-					parsedArguments.put(argument, new ParsedArgument(argument, argString, null));
-				}
-			}
-		}
-		checkMandatoryArguments();
-		validateArgumentValues();
-		checkLeftovers(forbidLeftovers);
+		parsedCommandLine = compile().parse(forbidLeftovers, args);
 	}
 
 	/**
@@ -225,105 +525,307 @@ public class ArgBox {
 	}
 
 	/**
-	 * Builds the help String so the program using ArgBox can print it.
+	 * Resolves a whole command line held in a single string, like a line typed in
+	 * a console, splitting it the way a POSIX shell would. See
+	 * {@link ArgSpec#parseCommandString(boolean, CharSequence)}.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param commandLine
+	 *            The command line, like a String or a {@link java.nio.CharBuffer}.
+	 * @throws ArgBoxException
+	 *             If a quote is never closed, or if a problem or more are detected
+	 *             on the command line.
 	 */
-	public String getHelp() {
-		final StringBuilder helpBuilder = new StringBuilder("HELP MANUAL\n\n");
-		for (final Argument arg : registeredArguments) {
-			helpBuilder.append(
-					String.format("- %1s : %2s | %3s\n", arg.getArgName(), arg.getShortCall(), arg.getLongCall()));
-			helpBuilder.append(arg.getHelpLine());
-			helpBuilder.append("\n");
-			if (arg.isMandatory()) {
-				helpBuilder.append("This argument is mandatory on the command line.\n");
-			} else {
-				helpBuilder.append("This argument is not mandatory on the command line.\n");
-			}
-			if (arg.isValueNotRequired()) {
-				helpBuilder.append("This argument has no value. If a value is present, it will be ignored.\n");
-			}
-			helpBuilder.append("\n");
+	public void resolveCommandString(final boolean forbidLeftovers, final CharSequence commandLine)
+			throws ArgBoxException {
+		parsedCommandLine = compile().parseCommandString(forbidLeftovers, commandLine);
+	}
+
+	/**
+	 * Resolves the command line like {@link #resolveCommandLine(boolean, String...)},
+	 * but returns the problems found instead of throwing them. See
+	 * {@link ArgSpec#tryParse(boolean, String...)}. The resolved command line is
+	 * only kept if it is valid.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            This parameter should contain the main program's arguments.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	public ParseResult tryResolveCommandLine(final boolean forbidLeftovers, final String... args) {
+		final ParseResult result = compile().tryParse(forbidLeftovers, args);
+		if (result.isSuccess()) {
+			parsedCommandLine = result.getCommandLine();
 		}
-		return helpBuilder.toString();
+		return result;
 	}
 
 	/**
-	 * Checks if every mandatory argument is present on the command line.
+	 * Enables or disables the expansion of the @file tokens of the command line.
+	 * When enabled, each @file token is replaced by the tokens of the argument
+	 * file, read lazily while the command line is resolved. See
+	 * {@link com.argbox.argfile.ArgumentFileTokenizer} for the file syntax.
 	 *
-	 * @throws ArgBoxException
-	 *             If some mandatory arguments are not found on the command line.
+	 * @param argumentFilesEnabled
+	 *            True to expand the argument files.
 	 */
-	private void checkMandatoryArguments() throws ArgBoxException {
-		final List<String> errors = registeredArguments.stream()
-				.filter(arg -> arg.isMandatory())
-				.filter(arg -> !parsedArguments.containsKey(arg))
-				.map(arg -> String.format("The argument %1s is required !", arg.getLongCall()))
-				.collect(Collectors.toList());
-		throwException(() -> !errors.isEmpty(), getArgBoxExceptionSupplier("Some arguments are missing !", errors));
+	public void setArgumentFilesEnabled(final boolean argumentFilesEnabled) {
+		options.argumentFilesEnabled = argumentFilesEnabled;
+		invalidate();
 	}
 
 	/**
-	 * Validates the values of the arguments on the command line. For each argument
-	 * that requires a value, it checks if the value is present and if the validator
-	 * of the registered argument validates it or not.
+	 * Enables or disables the abbreviation of the long calls. When enabled, a long
+	 * call can be shortened to any of its prefixes as long as no other argument
+	 * shares it, so --verb resolves --verbose. The exact calls always win over the
+	 * abbreviations.
 	 *
-	 * @throws ArgBoxException
-	 *             If the argument's value is invalid, for one or more reasons.
-	 */
-	private void validateArgumentValues() throws ArgBoxException {
-		final List<String> errorMessages = new ArrayList<>();
-		parsedArguments.values().stream()
-				.filter(parsedArg -> parsedArg.isValueRequired())
-				.filter(parsedArg -> {
-					final boolean emptyValue = null == parsedArg.getValue();
-					if (emptyValue) {
-						errorMessages.add(String.format("The argument %1s has no value !", parsedArg.getCommandArg()));
-					}
-					return !emptyValue;
-				})
-				.peek(parsedArg -> {
-					if (parsedArg.getValidator().negate().test(parsedArg.getValue())) {
-						errorMessages.add(String.format("The value %1s for the argument %2s is not valid !",
-								parsedArg.getValue(), parsedArg.getCommandArg()));
-					}
-				})
-				.close();
-		throwException(() -> CollectionUtils.isNotEmpty(errorMessages),
-				getArgBoxExceptionSupplier("One or more arguments have errors with their values !", errorMessages));
-	}
-
-	/**
-	 * Checks if there are left over Strings in the command line after parsing it.
-	 * If forbidLeftovers is false, this method does nothing.
+	 * @param abbreviationsEnabled
+	 *            True to accept the abbreviations.
+	 */
+	public void setAbbreviationsEnabled(final boolean abbreviationsEnabled) {
+		options.abbreviationsEnabled = abbreviationsEnabled;
+		invalidate();
+	}
+
+	/**
+	 * Enables or disables the compact syntax of the POSIX and GNU tools, for the
+	 * tokens that are not calls : the clustered short flags, like -vq for -v -q,
+	 * a value attached to a short call, like -nBob, or to a long call after an
+	 * equals sign, like --name=Bob, and the "--" token ending the calls, after
+	 * which every token is a positional value. The last call of a cluster can
+	 * take a value, attached or in the next token, like -vn Bob. A token that is
+	 * not wholly made of calls is a leftover, as before.
 	 *
-	 * @param forbidLeftovers
-	 *            If leftovers are forbidden or not.
-	 * @throws ArgBoxException
-	 *             If there are leftovers when they are forbidden.
-	 */
-	private void checkLeftovers(final boolean forbidLeftovers) throws ArgBoxException {
-		if (forbidLeftovers) {
-			final List<String> leftoverMessages = leftovers.stream()
-					.map(str -> String.format("The argument %s was not used.", str))
-					.collect(Collectors.toList());
-			throwException(() -> CollectionUtils.isNotEmpty(leftovers),
-					getArgBoxExceptionSupplier("There are unused arguments on the command line !", leftoverMessages));
+	 * @param compactSyntaxEnabled
+	 *            True to accept the compact syntax.
+	 */
+	public void setCompactSyntaxEnabled(final boolean compactSyntaxEnabled) {
+		options.compactSyntaxEnabled = compactSyntaxEnabled;
+		invalidate();
+	}
+
+	/**
+	 * Makes the validators of the arguments run concurrently on the given
+	 * executor, so the validation takes as long as the slowest validator instead
+	 * of the sum of them all. A validator running longer than the timeout is
+	 * reported as a validation error, as is a validator throwing an exception. The
+	 * error messages keep the command line order. The timeout of a validator
+	 * starts when it starts running, so waiting for a thread of a busy executor
+	 * does not count, unless it is longer than the timeout. A validator the
+	 * executor rejects runs on the parsing thread instead. A validator past its
+	 * timeout cannot be stopped : it keeps running, but its result is ignored.
+	 *
+	 * @param executor
+	 *            The executor running the validators, like
+	 *            {@link com.argbox.validation.ValidationExecutors#defaultExecutor()},
+	 *            or null to run them one after the other.
+	 * @param validatorTimeout
+	 *            How long each validator may run, or null for no limit.
+	 */
+	public void setValidationExecutor(final Executor executor, final Duration validatorTimeout) {
+		options.validationExecutor = executor;
+		options.validatorTimeout = validatorTimeout;
+		invalidate();
+	}
+
+	/**
+	 * Sets the properties file where the arguments missing from the command line
+	 * look for the keys of their
+	 * {@link com.argbox.model.FallbackSource#propertiesFile(String)}
+	 * sources. The file is read as UTF-8, at most once per parse and only if such
+	 * an argument is missing. A missing file holds no value.
+	 *
+	 * @param propertiesFile
+	 *            The properties file, or null.
+	 */
+	public void setPropertiesFile(final Path propertiesFile) {
+		options.propertiesFile = propertiesFile;
+		invalidate();
+	}
+
+	/**
+	 * Sets the listener receiving the timings of every parse phase and validator,
+	 * like {@link com.argbox.instrument.ParseCounters}, or the JfrParseListener
+	 * of the ArgBox-jfr module on Java 11 and later. Several listeners can be
+	 * combined with {@link ParseListener#of(ParseListener...)}.
+	 *
+	 * @param parseListener
+	 *            The listener, or null to stop the instrumentation.
+	 */
+	public void setParseListener(final ParseListener parseListener) {
+		options.parseListener = parseListener;
+		invalidate();
+	}
+
+	/**
+	 * Compiles the registered arguments into an immutable {@link ArgSpec}. The spec
+	 * is kept until the next call to a register method, and can be shared between
+	 * threads to parse many command lines concurrently. Before
+	 * {@link #freeze()}, the arguments keep their registration order.
+	 *
+	 * @return The compiled spec.
+	 */
+	public ArgSpec compile() {
+		final long count = modificationCount.get();
+		final Compilation last = compilation;
+		if ((null != last) && (last.modificationCount == count)) {
+			return last.spec;
+		}
+		final ArgSpec spec = new ArgSpec(getOrderedArguments(), positional.get(), getOrderedSubcommands(), options);
+		compilation = new Compilation(count, spec);
+		return spec;
+	}
+
+	/**
+	 * Freezes the registrations once every module has registered its arguments,
+	 * from any number of threads : the arguments are sorted by decreasing
+	 * priority, then by {@link Argument#compareTo(Argument)}, and the
+	 * subcommands by name, so the order of the help and of the ordinals no longer
+	 * depends on the order the threads ran in. Nothing can be registered
+	 * afterwards, and the compiled spec is returned without any lock. The threads
+	 * registering must be done, joined for instance, before freezing.
+	 *
+	 * @return The compiled spec.
+	 */
+	public ArgSpec freeze() {
+		frozen = true;
+		invalidate();
+		return compile();
+	}
+
+	/**
+	 * @return True if {@link #freeze()} has been called.
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * @return The registered arguments, in registration order, or in the frozen
+	 *         order once frozen.
+	 */
+	private List<Argument> getOrderedArguments() {
+		final List<Registration> registrations = new ArrayList<>(registeredArguments);
+		if (frozen) {
+			registrations.sort(Registration.FROZEN_ORDER);
+		}
+		final List<Argument> arguments = new ArrayList<>(registrations.size());
+		for (final Registration registration : registrations) {
+			arguments.add(registration.argument);
+		}
+		return arguments;
+	}
+
+	/**
+	 * @return The registered subcommands, in registration order, or by name once
+	 *         frozen.
+	 */
+	private List<Subcommand> getOrderedSubcommands() {
+		final List<Subcommand> orderedSubcommands = new ArrayList<>(registeredSubcommands);
+		if (frozen) {
+			orderedSubcommands.sort(Comparator.comparing(Subcommand::getName));
+		}
+		return orderedSubcommands;
+	}
+
+	/**
+	 * Compiles the arguments registered here as a subcommand of the given spec.
+	 *
+	 * @param parent
+	 *            The spec of the parent.
+	 * @param name
+	 *            The name of the subcommand.
+	 * @return The compiled spec of the subcommand.
+	 */
+	ArgSpec compileSubcommand(final ArgSpec parent, final String name) {
+		return new ArgSpec(parent, name, getOrderedArguments(), positional.get(), getOrderedSubcommands());
+	}
+
+	/**
+	 * @return The result of the last successful call to
+	 *         {@link #resolveCommandLine(boolean, String...)}, or null if the
+	 *         command line has not been resolved yet.
+	 */
+	public ParsedCommandLine getParsedCommandLine() {
+		return parsedCommandLine;
+	}
+
+	/**
+	 * Builds the help String so the program using ArgBox can print it. The manual
+	 * is cached until the next call to a register method.
+	 */
+	public String getHelp() {
+		return compile().getHelp();
+	}
+
+	/**
+	 * Builds the help String of a subcommand : the inherited arguments, the ones
+	 * of the subcommand and its own subcommands. Only the subcommands on the path
+	 * are compiled.
+	 *
+	 * @param subcommandPath
+	 *            The names of the subcommands, from the outermost one.
+	 * @return The help manual of the subcommand.
+	 * @throws IllegalArgumentException
+	 *             If a name of the path is not a subcommand.
+	 * @throws IllegalStateException
+	 *             If a subcommand of the path cannot be compiled, see
+	 *             {@link ArgSpec#getSubcommand(String)}.
+	 */
+	public String getSubcommandHelp(final String... subcommandPath) {
+		ArgSpec subcommandSpec = compile();
+		for (final String name : subcommandPath) {
+			final ArgSpec parentSpec = subcommandSpec;
+			subcommandSpec = parentSpec.getSubcommand(name);
+			if (null == subcommandSpec) {
+				throw new IllegalArgumentException(String.format("There is no subcommand %1$s in %2$s !", name,
+						parentSpec.getSubcommandPath()));
+			}
 		}
+		return subcommandSpec.getHelp();
+	}
+
+	/**
+	 * Streams the help manual into the given Appendable, so a large manual never
+	 * needs to exist as a single String.
+	 *
+	 * @param out
+	 *            Where to write the manual, a Writer or a PrintStream for instance.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	public void getHelp(final Appendable out) throws IOException {
+		compile().getHelp(out);
+	}
+
+	/**
+	 * Builds the help String with the calls and the help lines in two columns,
+	 * wrapped to fit the given terminal width.
+	 *
+	 * @param width
+	 *            The terminal width, in characters.
+	 * @return The help manual.
+	 */
+	public String getHelp(final int width) {
+		return compile().getHelp(width);
 	}
 
 	/**
-	 * Finds an argument on the command line, from its short or long version, given
-	 * the String parameter. The first occurrence is returned.
+	 * Streams the help manual into the given Appendable, with the calls and the
+	 * help lines in two columns wrapped to fit the given terminal width.
 	 *
-	 * @param argString
-	 *            The string representation of the argument.
-	 * @return The first occurrence of the searched argument.
+	 * @param out
+	 *            Where to write the manual.
+	 * @param width
+	 *            The terminal width, in characters.
+	 * @throws IOException
+	 *             If the Appendable fails.
 	 */
-	private Argument resolveArgument(final String argString) {
-		return registeredArguments.stream()
-				.filter(arg -> StringUtils.equalsAny(argString, arg.getShortCall(), arg.getLongCall()))
-				.findFirst()
-				.get();
+	public void getHelp(final Appendable out, final int width) throws IOException {
+		compile().getHelp(out, width);
 	}
 
 	/**
@@ -353,4 +855,40 @@ public class ArgBox {
 		return Arrays.copyOf(args, args.length);
 	}
 
+	/**
+	 * A registered argument and its priority.
+	 */
+	private static final class Registration {
+
+		private static final Comparator<Registration> FROZEN_ORDER = Comparator
+				.comparingInt((final Registration registration) -> registration.priority).reversed()
+				.thenComparing(registration -> registration.argument);
+
+		private final Argument argument;
+
+		private final int priority;
+
+		Registration(final Argument argument, final int priority) {
+			this.argument = argument;
+			this.priority = priority;
+		}
+
+	}
+
+	/**
+	 * A compiled spec, and the number of modifications it takes into account.
+	 */
+	private static final class Compilation {
+
+		private final long modificationCount;
+
+		private final ArgSpec spec;
+
+		Compilation(final long modificationCount, final ArgSpec spec) {
+			this.modificationCount = modificationCount;
+			this.spec = spec;
+		}
+
+	}
+
 }
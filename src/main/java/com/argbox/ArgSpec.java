@@ -0,0 +1,1617 @@
+package com.argbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import com.argbox.argfile.ArgumentFileExpander;
+import com.argbox.exception.ArgBoxException;
+import com.argbox.help.HelpRenderer;
+import com.argbox.instrument.ParseListener;
+import com.argbox.instrument.ParsePhase;
+import com.argbox.model.Argument;
+import com.argbox.model.FallbackSource;
+import com.argbox.model.ParsedValues;
+import com.argbox.model.Positional;
+import com.argbox.model.Subcommand;
+import com.argbox.model.TypedArgument;
+
+/**
+ * ArgSpec is the frozen, compiled form of the arguments registered in an
+ * {@link ArgBox}. It holds no parsing state : every call to
+ * {@link #parse(boolean, String...)} works on its own local state and returns
+ * an independent {@link ParsedCommandLine}, so a single ArgSpec can be shared
+ * by any number of threads without locking.
+ */
+public final class ArgSpec {
+
+	/**
+	 * Returned by the scan of a token that is not in the compact syntax.
+	 */
+	private static final int NOT_COMPACT = -1;
+
+	/**
+	 * Returned by the scan of a token in the compact syntax, wholly recorded.
+	 */
+	private static final int COMPACT = -2;
+
+	/**
+	 * The registered arguments, in registration order.
+	 */
+	private final List<Argument> arguments;
+
+	/**
+	 * The positional values, or null if none are registered.
+	 */
+	private final Positional positional;
+
+	/**
+	 * The subcommands, by name.
+	 */
+	private final Map<String, Subcommand> subcommands;
+
+	/**
+	 * The specs of the subcommands met so far, each compiled the first time it is
+	 * met.
+	 */
+	private final ConcurrentMap<String, ArgSpec> subcommandSpecs = new ConcurrentHashMap<>();
+
+	/**
+	 * The failures of the subcommands that could not be compiled, kept so their
+	 * supplier is not called again on each parse naming them.
+	 */
+	private final ConcurrentMap<String, IllegalStateException> subcommandFailures = new ConcurrentHashMap<>();
+
+	/**
+	 * The names of the subcommands selecting this spec, from the root spec.
+	 */
+	private final List<String> subcommandPath;
+
+	/**
+	 * Prefix tree of the short and long calls.
+	 */
+	private final CallTrie calls;
+
+	/**
+	 * Index of the ordinals of the arguments by name. The ordinal of an argument
+	 * is its index in {@link #arguments}.
+	 */
+	private final Map<String, Integer> ordinalsByName;
+
+	/**
+	 * True if at least one argument is a {@link TypedArgument}, so the parse
+	 * results need room for the converted values.
+	 */
+	private final boolean typedRegistered;
+
+	/**
+	 * True if at least one argument has fallback sources, so they are only
+	 * looked at when needed.
+	 */
+	private final boolean fallbacksRegistered;
+
+	/**
+	 * True if at least one argument is a short-circuit one, so the pre-scan of the
+	 * command line can be skipped otherwise.
+	 */
+	private final boolean shortCircuitRegistered;
+
+	/**
+	 * The parsing options, frozen when the spec is compiled.
+	 */
+	private final ParseOptions options;
+
+	/**
+	 * The help manual, rendered on the first call to {@link #getHelp()}.
+	 */
+	private volatile String help;
+
+	/**
+	 * The last column layout renderer used, so its column widths are computed
+	 * once per terminal width.
+	 */
+	private volatile HelpRenderer columnsRenderer;
+
+	/**
+	 * Compiles the given arguments. They are expected to have been validated by
+	 * {@link ArgBox#register(String, String, String, String, boolean, boolean, java.util.function.Predicate)}.
+	 *
+	 * @param registeredArguments
+	 *            The registered arguments, in registration order.
+	 * @param positional
+	 *            The positional values, or null.
+	 * @param subcommands
+	 *            The subcommands, not compiled yet.
+	 * @param options
+	 *            The parsing options, copied.
+	 */
+	ArgSpec(final Collection<Argument> registeredArguments, final Positional positional,
+			final Collection<Subcommand> subcommands, final ParseOptions options) {
+		this(registeredArguments, positional, subcommands, options, Collections.emptyList());
+	}
+
+	/**
+	 * Compiles a subcommand. Its arguments come after the ones of its parent, so
+	 * the inherited arguments keep their ordinals, and it uses the options of its
+	 * parent.
+	 *
+	 * @param parent
+	 *            The spec of the parent.
+	 * @param name
+	 *            The name of the subcommand.
+	 * @param ownArguments
+	 *            The arguments registered for the subcommand. The ones equal to an
+	 *            inherited argument, like the help argument, are skipped.
+	 * @param positional
+	 *            The positional values of the subcommand, or null.
+	 * @param subcommands
+	 *            The nested subcommands.
+	 * @throws IllegalStateException
+	 *             If an argument of the subcommand collides with an inherited
+	 *             one.
+	 */
+	ArgSpec(final ArgSpec parent, final String name, final Collection<Argument> ownArguments,
+			final Positional positional, final Collection<Subcommand> subcommands) {
+		this(inherit(parent, name, ownArguments), positional, subcommands, parent.options,
+				append(parent.subcommandPath, name));
+	}
+
+	private ArgSpec(final Collection<Argument> registeredArguments, final Positional positional,
+			final Collection<Subcommand> subcommands, final ParseOptions options, final List<String> subcommandPath) {
+		arguments = Collections.unmodifiableList(new ArrayList<>(registeredArguments));
+		this.positional = positional;
+		final Map<String, Subcommand> byName = new LinkedHashMap<>();
+		subcommands.forEach(subcommand -> byName.put(subcommand.getName(), subcommand));
+		this.subcommands = Collections.unmodifiableMap(byName);
+		this.subcommandPath = subcommandPath;
+		final Map<String, Integer> ordinals = new HashMap<>();
+		boolean shortCircuit = false;
+		boolean typed = false;
+		boolean fallbacks = false;
+		for (int ordinal = 0; ordinal < arguments.size(); ordinal++) {
+			final Argument arg = arguments.get(ordinal);
+			shortCircuit |= arg.isShortCircuit();
+			typed |= arg instanceof TypedArgument;
+			fallbacks |= !arg.getFallbacks().isEmpty();
+			ordinals.put(arg.getArgName(), ordinal);
+		}
+		calls = new CallTrie(arguments);
+		ordinalsByName = Collections.unmodifiableMap(ordinals);
+		shortCircuitRegistered = shortCircuit;
+		typedRegistered = typed;
+		fallbacksRegistered = fallbacks;
+		this.options = new ParseOptions(options);
+	}
+
+	private static List<Argument> inherit(final ArgSpec parent, final String name,
+			final Collection<Argument> ownArguments) {
+		final List<Argument> all = new ArrayList<>(parent.arguments);
+		for (final Argument argument : ownArguments) {
+			if (parent.arguments.contains(argument)) {
+				continue;
+			}
+			if ((parent.getOrdinal(argument.getArgName()) >= 0) || (parent.calls.get(argument.getShortCall()) >= 0)
+					|| (parent.calls.get(argument.getLongCall()) >= 0)) {
+				throw new IllegalStateException(String.format(
+						"The argument %1$s of the subcommand %2$s collides with an inherited argument !",
+						argument.getArgName(), name));
+			}
+			all.add(argument);
+		}
+		return all;
+	}
+
+	private static List<String> append(final List<String> path, final String name) {
+		final List<String> subcommandPath = new ArrayList<>(path);
+		subcommandPath.add(name);
+		return Collections.unmodifiableList(subcommandPath);
+	}
+
+	/**
+	 * @return The compiled arguments, in registration order.
+	 */
+	public List<Argument> getArguments() {
+		return arguments;
+	}
+
+	/**
+	 * Finds a compiled argument from its name.
+	 *
+	 * @param argName
+	 *            The name of the argument.
+	 * @return The argument, or null if no argument has this name.
+	 */
+	public Argument getArgument(final String argName) {
+		final Integer ordinal = ordinalsByName.get(argName);
+		return null == ordinal ? null : arguments.get(ordinal);
+	}
+
+	/**
+	 * Finds the ordinal of a compiled argument from its name, which is its index
+	 * in {@link #getArguments()}.
+	 *
+	 * @param argName
+	 *            The name of the argument.
+	 * @return The ordinal, or -1 if no argument has this name.
+	 */
+	public int getOrdinal(final String argName) {
+		final Integer ordinal = ordinalsByName.get(argName);
+		return null == ordinal ? -1 : ordinal;
+	}
+
+	/**
+	 * Finds a compiled argument from one of its calls, or from an abbreviation of
+	 * its long call if they are enabled.
+	 *
+	 * @param call
+	 *            The call, as typed on the command line.
+	 * @return The argument, or null if no argument uses this call.
+	 */
+	public Argument findArgument(final CharSequence call) {
+		final int ordinal = resolveArgument(call);
+		return ordinal < 0 ? null : arguments.get(ordinal);
+	}
+
+	/**
+	 * Lists the short and long calls starting with the given prefix, like a shell
+	 * completion does, in character order.
+	 *
+	 * @param prefix
+	 *            The start of the calls, possibly empty.
+	 * @return The matching calls.
+	 */
+	public List<String> getCallsStartingWith(final CharSequence prefix) {
+		final List<String> matchingCalls = new ArrayList<>();
+		calls.collect(prefix, matchingCalls);
+		return matchingCalls;
+	}
+
+	/**
+	 * @return True if the compact syntax is enabled, see
+	 *         {@link ArgBox#setCompactSyntaxEnabled(boolean)}.
+	 */
+	public boolean isCompactSyntaxEnabled() {
+		return options.compactSyntaxEnabled;
+	}
+
+	/**
+	 * Finds the arguments held by a token that is not a call in the compact
+	 * syntax, the way a parse does : a --long=value call, or a cluster of short
+	 * calls whose last one may have an attached value. Nothing is found if the
+	 * compact syntax is disabled, and the "--" end of options holds no argument.
+	 *
+	 * @param token
+	 *            The token, as typed on the command line.
+	 * @param found
+	 *            Where to add the arguments held by the token, in token order.
+	 * @return True if the last argument found requires a value, which is the
+	 *         next token.
+	 */
+	public boolean findCompactArguments(final CharSequence token, final List<Argument> found) {
+		final int length = token.length();
+		if (!options.compactSyntaxEnabled || (length < 2) || ('-' != token.charAt(0))) {
+			return false;
+		}
+		if ('-' == token.charAt(1)) {
+			final int equals = findValueSeparator(token);
+			final int ordinal = equals < 0 ? -1 : resolveArgument(token, 0, equals);
+			if ((ordinal >= 0) && arguments.get(ordinal).isValueRequired()) {
+				found.add(arguments.get(ordinal));
+			}
+			return false;
+		}
+		final int first = found.size();
+		int index = 1;
+		while (index < length) {
+			final long match = calls.matchShortCall(token, index);
+			if (match < 0) {
+				found.subList(first, found.size()).clear();
+				return false;
+			}
+			final Argument argument = arguments.get((int) (match >>> 32));
+			found.add(argument);
+			index = (int) match;
+			if (argument.isValueRequired()) {
+				return index == length;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The positional values, or null if none are registered.
+	 */
+	public Positional getPositional() {
+		return positional;
+	}
+
+	/**
+	 * @return The subcommands, in registration order, none of them compiled by
+	 *         this call.
+	 */
+	public Collection<Subcommand> getSubcommands() {
+		return subcommands.values();
+	}
+
+	/**
+	 * Provides the spec of a subcommand, compiled from the supplier of the
+	 * subcommand the first time it is asked for, then kept. A failed compilation
+	 * is kept too : the supplier is never called again. Its help covers the
+	 * inherited arguments and the ones of the subcommand only. This method is
+	 * thread-safe.
+	 *
+	 * @param name
+	 *            The name of the subcommand.
+	 * @return The spec of the subcommand, or null if there is no such subcommand.
+	 * @throws IllegalStateException
+	 *             If an argument of the subcommand collides with an inherited
+	 *             one, or if its supplier fails.
+	 */
+	public ArgSpec getSubcommand(final String name) {
+		final Subcommand subcommand = subcommands.get(name);
+		if (null == subcommand) {
+			return null;
+		}
+		final IllegalStateException failure = subcommandFailures.get(name);
+		if (null != failure) {
+			throw failure;
+		}
+		try {
+			return subcommandSpecs.computeIfAbsent(name,
+					key -> subcommand.getArgBoxSupplier().get().compileSubcommand(this, key));
+		} catch (final RuntimeException e) {
+			final IllegalStateException newFailure = e instanceof IllegalStateException ? (IllegalStateException) e
+					: new IllegalStateException(String.format("The subcommand %1$s cannot be compiled !", name), e);
+			final IllegalStateException keptFailure = subcommandFailures.putIfAbsent(name, newFailure);
+			throw null == keptFailure ? newFailure : keptFailure;
+		}
+	}
+
+	/**
+	 * @return The names of the subcommands selecting this spec from the root
+	 *         spec, or an empty list for the root spec.
+	 */
+	public List<String> getSubcommandPath() {
+		return subcommandPath;
+	}
+
+	/**
+	 * Builds the help String so the program using ArgBox can print it. The manual
+	 * is rendered once, then cached for the lifetime of this spec.
+	 *
+	 * @return The help manual.
+	 */
+	public String getHelp() {
+		String manual = help;
+		if (null == manual) {
+			manual = new HelpRenderer(arguments, positional, subcommands.values(), 0).render();
+			help = manual;
+		}
+		return manual;
+	}
+
+	/**
+	 * Streams the help manual into the given Appendable, without building it as a
+	 * single String unless it is already cached.
+	 *
+	 * @param out
+	 *            Where to write the manual.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	public void getHelp(final Appendable out) throws IOException {
+		final String manual = help;
+		if (null == manual) {
+			new HelpRenderer(arguments, positional, subcommands.values(), 0).render(out);
+		} else {
+			out.append(manual);
+		}
+	}
+
+	/**
+	 * Builds the help String using the column layout, fitting the given terminal
+	 * width.
+	 *
+	 * @param width
+	 *            The terminal width, in characters.
+	 * @return The help manual.
+	 */
+	public String getHelp(final int width) {
+		return getColumnsRenderer(width).render();
+	}
+
+	/**
+	 * Streams the help manual into the given Appendable using the column layout,
+	 * fitting the given terminal width.
+	 *
+	 * @param out
+	 *            Where to write the manual.
+	 * @param width
+	 *            The terminal width, in characters.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	public void getHelp(final Appendable out, final int width) throws IOException {
+		getColumnsRenderer(width).render(out);
+	}
+
+	private HelpRenderer getColumnsRenderer(final int width) {
+		HelpRenderer renderer = columnsRenderer;
+		if ((null == renderer) || (renderer.getWidth() != width)) {
+			renderer = new HelpRenderer(arguments, positional, subcommands.values(), width);
+			columnsRenderer = renderer;
+		}
+		return renderer;
+	}
+
+	/**
+	 * Finds the first short-circuit argument on the command line, like help or
+	 * version. Only whole tokens are compared to the calls, and the scan stops at
+	 * the first match.
+	 *
+	 * @param args
+	 *            The whole command line.
+	 * @return The first short-circuit argument found, or null if there is none.
+	 */
+	public Argument findShortCircuitArgument(final String... args) {
+		final int index = findShortCircuitIndex(args);
+		return index < 0 ? null : arguments.get(resolveArgument(args[index]));
+	}
+
+	/**
+	 * Finds the position of the first short-circuit argument on the command line.
+	 *
+	 * @param args
+	 *            The whole command line.
+	 * @return The index of the first short-circuit call, or -1 if there is none.
+	 */
+	private int findShortCircuitIndex(final String... args) {
+		if (shortCircuitRegistered && (null != args)) {
+			for (int i = 0; i < args.length; i++) {
+				if (options.compactSyntaxEnabled && "--".equals(args[i])) {
+					break;
+				}
+				final int ordinal = resolveArgument(args[i]);
+				if ((ordinal >= 0) && arguments.get(ordinal).isShortCircuit()) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Parses the command line against this spec, lists the left over strings,
+	 * checks if the mandatory arguments are all there and validates all the
+	 * values. This method is thread-safe.
+	 * <p>
+	 * The command line is first scanned for a short-circuit argument. If one is
+	 * found, the returned command line only holds this argument and no check is
+	 * made, see {@link ParsedCommandLine#getShortCircuitArgument()}.
+	 * <p>
+	 * If the argument files are enabled, the @file tokens are expanded while the
+	 * command line is parsed, see {@link #parse(boolean, Iterator)}.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            The command line to parse.
+	 * @return The parsed command line, independent from any other parse.
+	 * @throws ArgBoxException
+	 *             If a problem or more are detected on the command line.
+	 */
+	public ParsedCommandLine parse(final boolean forbidLeftovers, final String... args) throws ArgBoxException {
+		return getCommandLine(run(ParseContext.oneShot(), forbidLeftovers, true, args));
+	}
+
+	/**
+	 * Parses the command line like {@link #parse(boolean, String...)}, reusing the
+	 * given context instead of allocating the working state of the parse. This
+	 * method is thread-safe as long as each thread uses its own context.
+	 * <p>
+	 * The returned command line is a view of the context : the next parse with
+	 * the context overwrites it, so it must neither be kept after that nor be
+	 * shared with other threads. Copy the values needed before parsing again.
+	 *
+	 * @param context
+	 *            The context, like {@link ParseContext#forCurrentThread()}.
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            The command line to parse.
+	 * @return The parsed command line, valid until the next parse with the
+	 *         context.
+	 * @throws ArgBoxException
+	 *             If a problem or more are detected on the command line.
+	 */
+	public ParsedCommandLine parse(final ParseContext context, final boolean forbidLeftovers, final String... args)
+			throws ArgBoxException {
+		return getCommandLine(run(context, forbidLeftovers, true, args));
+	}
+
+	/**
+	 * Parses a command line read as a stream of tokens, so it never needs to be
+	 * held in memory as a whole. If the argument files are enabled, each @file
+	 * token is replaced by the tokens of the argument file, read lazily. The
+	 * arguments missing from the command line are then looked for in their
+	 * fallback sources, see {@link Argument#withFallbacks(FallbackSource...)}.
+	 * Then the mandatory arguments, the values and the leftovers are checked. If a
+	 * short-circuit argument is met, the checks are skipped, see
+	 * {@link ParsedCommandLine#getShortCircuitArgument()}. This method is
+	 * thread-safe.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            The tokens of the command line.
+	 * @return The parsed command line, independent from any other parse.
+	 * @throws ArgBoxException
+	 *             If an argument file cannot be read or includes itself, or if a
+	 *             problem or more are detected on the command line.
+	 */
+	public ParsedCommandLine parse(final boolean forbidLeftovers, final Iterator<String> args)
+			throws ArgBoxException {
+		return getCommandLine(run(ParseContext.oneShot(), forbidLeftovers, true, args));
+	}
+
+	/**
+	 * Parses the command line like {@link #parse(boolean, String...)}, but never
+	 * throws : every problem found on the command line is returned, all phases
+	 * together, each with the argument, token and position concerned. No stack
+	 * trace is ever built, so this is the cheapest way to reject a command line.
+	 * This method is thread-safe.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            The command line to parse.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	public ParseResult tryParse(final boolean forbidLeftovers, final String... args) {
+		return run(ParseContext.oneShot(), forbidLeftovers, false, args);
+	}
+
+	/**
+	 * Parses the command line like {@link #tryParse(boolean, String...)}, reusing
+	 * the given context, see {@link #parse(ParseContext, boolean, String...)}. The
+	 * command line of a successful result is a view of the context, overwritten
+	 * by its next parse and not to be shared with other threads. The errors of a
+	 * failed result are independent.
+	 *
+	 * @param context
+	 *            The context, like {@link ParseContext#forCurrentThread()}.
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            The command line to parse.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	public ParseResult tryParse(final ParseContext context, final boolean forbidLeftovers, final String... args) {
+		return run(context, forbidLeftovers, false, args);
+	}
+
+	/**
+	 * Parses a stream of tokens like {@link #parse(boolean, Iterator)}, but never
+	 * throws, see {@link #tryParse(boolean, String...)}. This method is
+	 * thread-safe.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param args
+	 *            The tokens of the command line.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	public ParseResult tryParse(final boolean forbidLeftovers, final Iterator<String> args) {
+		return run(ParseContext.oneShot(), forbidLeftovers, false, args);
+	}
+
+	/**
+	 * Parses a whole command line held in a single string, like a line typed in a
+	 * console, splitting it the way a POSIX shell would : tokens are separated by
+	 * whitespace, single quotes keep their content as is, double quotes allow \"
+	 * and \\ escapes, and outside of quotes a backslash escapes the next
+	 * character. The calls are resolved straight from the command line, and only
+	 * the tokens that are kept, like the values and the leftovers, become Strings.
+	 * The argument files are never expanded. This method is thread-safe.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param commandLine
+	 *            The command line, like a String or a
+	 *            {@link java.nio.CharBuffer}. It is not modified.
+	 * @return The parsed command line, independent from any other parse.
+	 * @throws ArgBoxException
+	 *             If a quote is never closed, or if a problem or more are detected
+	 *             on the command line.
+	 */
+	public ParsedCommandLine parseCommandString(final boolean forbidLeftovers, final CharSequence commandLine)
+			throws ArgBoxException {
+		return getCommandLine(runCommandString(ParseContext.oneShot(), forbidLeftovers, true, commandLine));
+	}
+
+	/**
+	 * Parses a whole command line held in a single string like
+	 * {@link #parseCommandString(boolean, CharSequence)}, reusing the given
+	 * context, see {@link #parse(ParseContext, boolean, String...)}. The token
+	 * views and the unquoted buffer are reused too.
+	 *
+	 * @param context
+	 *            The context, like {@link ParseContext#forCurrentThread()}.
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param commandLine
+	 *            The command line. It is not modified.
+	 * @return The parsed command line, valid until the next parse with the
+	 *         context.
+	 * @throws ArgBoxException
+	 *             If a quote is never closed, or if a problem or more are detected
+	 *             on the command line.
+	 */
+	public ParsedCommandLine parseCommandString(final ParseContext context, final boolean forbidLeftovers,
+			final CharSequence commandLine) throws ArgBoxException {
+		return getCommandLine(runCommandString(context, forbidLeftovers, true, commandLine));
+	}
+
+	/**
+	 * Parses a whole command line held in a single string like
+	 * {@link #parseCommandString(boolean, CharSequence)}, but never throws, see
+	 * {@link #tryParse(boolean, String...)}. This method is thread-safe.
+	 *
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param commandLine
+	 *            The command line. It is not modified.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	public ParseResult tryParseCommandString(final boolean forbidLeftovers, final CharSequence commandLine) {
+		return runCommandString(ParseContext.oneShot(), forbidLeftovers, false, commandLine);
+	}
+
+	/**
+	 * Parses a whole command line held in a single string like
+	 * {@link #tryParseCommandString(boolean, CharSequence)}, reusing the given
+	 * context, see {@link #tryParse(ParseContext, boolean, String...)}.
+	 *
+	 * @param context
+	 *            The context, like {@link ParseContext#forCurrentThread()}.
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param commandLine
+	 *            The command line. It is not modified.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	public ParseResult tryParseCommandString(final ParseContext context, final boolean forbidLeftovers,
+			final CharSequence commandLine) {
+		return runCommandString(context, forbidLeftovers, false, commandLine);
+	}
+
+	private static ParsedCommandLine getCommandLine(final ParseResult result) throws ArgBoxException {
+		if (!result.isSuccess()) {
+			throw result.toException(true);
+		}
+		return result.getCommandLine();
+	}
+
+	/**
+	 * Scans the command line for a short-circuit argument, then parses it. With
+	 * subcommands, the short-circuit arguments are only found while parsing, so
+	 * they apply to the selected subcommand.
+	 *
+	 * @param context
+	 *            The working state of the parse.
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param failFast
+	 *            True to stop at the first check finding problems, as the
+	 *            exception only reports one kind of problems.
+	 * @param args
+	 *            The command line to parse.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	private ParseResult run(final ParseContext context, final boolean forbidLeftovers, final boolean failFast,
+			final String... args) {
+		final long start = startTime();
+		context.reset(this);
+		final int shortCircuitIndex = subcommands.isEmpty() ? findShortCircuitIndex(args) : -1;
+		if (shortCircuitIndex < 0) {
+			expandAndTokenize(context, context.tokens(args));
+			return check(context, forbidLeftovers, failFast, start);
+		}
+		final int ordinal = resolveArgument(args[shortCircuitIndex]);
+		context.parsedValues.set(ordinal, args[shortCircuitIndex], null, shortCircuitIndex);
+		context.shortCircuitOrdinal = ordinal;
+		final ParseListener listener = options.parseListener;
+		if (null != listener) {
+			lap(listener, ParsePhase.TOKENIZE, start);
+			listener.parseCompleted(System.nanoTime() - start, 0, null);
+		}
+		return context.success();
+	}
+
+	private ParseResult run(final ParseContext context, final boolean forbidLeftovers, final boolean failFast,
+			final Iterator<String> args) {
+		final long start = startTime();
+		context.reset(this);
+		expandAndTokenize(context, args);
+		return check(context, forbidLeftovers, failFast, start);
+	}
+
+	private ParseResult runCommandString(final ParseContext context, final boolean forbidLeftovers,
+			final boolean failFast, final CharSequence commandLine) {
+		final long start = startTime();
+		context.reset(this);
+		final CommandStringTokenizer tokens = context.tokens(commandLine);
+		tokenize(context, tokens, 0);
+		if (tokens.getUnclosedQuote() >= 0) {
+			context.errors.add(new ParseError(ParseError.Kind.UNCLOSED_QUOTE, null, null, -1,
+					String.format("The quote at index %1$d is never closed !", tokens.getUnclosedQuote())));
+		}
+		return check(context, forbidLeftovers, failFast, start);
+	}
+
+	/**
+	 * @return The System.nanoTime() at which the parse starts, or 0 without
+	 *         listener.
+	 */
+	private long startTime() {
+		return null == options.parseListener ? 0 : System.nanoTime();
+	}
+
+	/**
+	 * Completes the tokenized command line with the fallback sources, then runs
+	 * the checks of the selected spec one phase after the other, collecting the
+	 * problems found.
+	 *
+	 * @param context
+	 *            The tokenized command line.
+	 * @param forbidLeftovers
+	 *            Indicates if useless arguments are allowed on the command line.
+	 * @param failFast
+	 *            True to stop at the first check finding problems.
+	 * @param start
+	 *            The System.nanoTime() at which the parse started.
+	 * @return The parsed command line, or the problems found on it.
+	 */
+	private ParseResult check(final ParseContext context, final boolean forbidLeftovers, final boolean failFast,
+			final long start) {
+		final ParseListener listener = options.parseListener;
+		final ArgSpec spec = context.spec;
+		final ParsedValues parsedValues = context.parsedValues;
+		final List<String> leftovers = context.leftovers;
+		final List<ParseError> errors = context.errors;
+		final boolean shortCircuited = context.shortCircuitOrdinal >= 0;
+		long time = lap(listener, ParsePhase.TOKENIZE, start);
+		if (errors.isEmpty() && !shortCircuited) {
+			spec.resolveFallbacks(parsedValues, errors);
+			time = lap(listener, ParsePhase.RESOLVE_FALLBACKS, time);
+		}
+		if (errors.isEmpty() && !shortCircuited) {
+			spec.checkMandatoryArguments(parsedValues, errors);
+			if (!failFast || errors.isEmpty()) {
+				spec.checkPositionalArity(parsedValues, errors);
+			}
+			time = lap(listener, ParsePhase.CHECK_MANDATORY, time);
+			if (!failFast || errors.isEmpty()) {
+				spec.validateArgumentValues(parsedValues, errors);
+				time = lap(listener, ParsePhase.VALIDATE, time);
+			}
+			if (!failFast || errors.isEmpty()) {
+				spec.checkLeftovers(forbidLeftovers, leftovers, parsedValues, errors);
+				lap(listener, ParsePhase.CHECK_LEFTOVERS, time);
+			}
+		}
+		if (null != listener) {
+			listener.parseCompleted(System.nanoTime() - start, leftovers.size(),
+					errors.isEmpty() ? null : errors.get(0).getKind().getPhase());
+		}
+		return errors.isEmpty() ? context.success() : context.failure();
+	}
+
+	/**
+	 * Tokenizes the command line, expanding the argument files if they are
+	 * enabled. An argument file that cannot be read or includes itself is
+	 * reported in the errors of the context.
+	 */
+	private void expandAndTokenize(final ParseContext context, final Iterator<String> args) {
+		if (!options.argumentFilesEnabled) {
+			tokenize(context, args, 0);
+			return;
+		}
+		try (ArgumentFileExpander expander = new ArgumentFileExpander(args)) {
+			tokenize(context, expander, 0);
+		} catch (final IOException | UncheckedIOException e) {
+			final Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+			context.errors.add(new ParseError(ParseError.Kind.ARGUMENT_FILE, null, null, -1,
+					String.format("%1$s : %2$s", cause.getClass().getSimpleName(), cause.getMessage())));
+		}
+	}
+
+	/**
+	 * Looks for the values of the arguments missing from the command line in their
+	 * fallback sources, taking a snapshot of each source needed.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line, completed with the
+	 *            values found in the fallback sources.
+	 * @param errors
+	 *            Where to report a properties file that cannot be read.
+	 */
+	private void resolveFallbacks(final ParsedValues parsedValues, final List<ParseError> errors) {
+		if (!fallbacksRegistered) {
+			return;
+		}
+		final FallbackSnapshot snapshot = new FallbackSnapshot(options.propertiesFile);
+		try {
+			for (int ordinal = 0; ordinal < arguments.size(); ordinal++) {
+				if (!parsedValues.isPresent(ordinal)) {
+					resolveFallback(parsedValues, ordinal, snapshot);
+				}
+			}
+		} catch (final IOException e) {
+			errors.add(new ParseError(ParseError.Kind.PROPERTIES_FILE, null, null, -1,
+					String.format("%1$s : %2$s", e.getClass().getSimpleName(), e.getMessage())));
+		}
+	}
+
+	private void resolveFallback(final ParsedValues parsedValues, final int ordinal,
+			final FallbackSnapshot snapshot) throws IOException {
+		final Argument argument = arguments.get(ordinal);
+		for (final FallbackSource source : argument.getFallbacks()) {
+			final String value = snapshot.get(source);
+			if (null == value) {
+				continue;
+			}
+			if (argument.isValueRequired()) {
+				parsedValues.set(ordinal, source.toString(), value, -1);
+			} else if ("true".equalsIgnoreCase(value.trim())) {
+				parsedValues.set(ordinal, source.toString(), null, -1);
+			}
+			return;
+		}
+	}
+
+	/**
+	 * Reports a completed phase to the listener, if any.
+	 *
+	 * @param listener
+	 *            The listener, or null.
+	 * @param phase
+	 *            The completed phase.
+	 * @param since
+	 *            The System.nanoTime() at which the phase started.
+	 * @return The System.nanoTime() at which the phase completed, or 0 without
+	 *         listener.
+	 */
+	private static long lap(final ParseListener listener, final ParsePhase phase, final long since) {
+		if (null == listener) {
+			return 0;
+		}
+		final long now = System.nanoTime();
+		listener.phaseCompleted(phase, now - since);
+		return now;
+	}
+
+	/**
+	 * Calls {@link #parse(boolean, String...)} with forbidLeftovers to true.
+	 *
+	 * @param args
+	 *            See {@link #parse(boolean, String...)}.
+	 * @return See {@link #parse(boolean, String...)}.
+	 * @throws ArgBoxException
+	 *             See {@link #parse(boolean, String...)}.
+	 */
+	public ParsedCommandLine parse(final String... args) throws ArgBoxException {
+		return parse(true, args);
+	}
+
+	/**
+	 * Resolves the calls and values of the command line against this spec, without
+	 * any check : no short-circuit, mandatory argument, value or leftover check is
+	 * made, no argument file is expanded and no fallback source is read. The
+	 * subcommands are selected as when parsing. This method is thread-safe.
+	 *
+	 * @param args
+	 *            The command line to resolve.
+	 * @return The resolved command line, independent from any other parse.
+	 */
+	public ParsedCommandLine resolve(final String... args) {
+		final ParseContext context = ParseContext.oneShot();
+		context.reset(this);
+		tokenize(context, context.tokens(args), 0);
+		return new ParsedCommandLine(context.spec, context.parsedValues, context.leftovers, context.positionals,
+				null);
+	}
+
+	/**
+	 * @return Empty results sized for the arguments of this spec.
+	 */
+	ParsedValues newParsedValues() {
+		return new ParsedValues(arguments.size(), typedRegistered);
+	}
+
+	/**
+	 * Walks through the command line, matching the calls of the registered
+	 * arguments and their values, and listing the left over strings. A token
+	 * naming a subcommand, before any positional value, selects the subcommand :
+	 * the rest of the command line is walked through by its spec.
+	 *
+	 * @param context
+	 *            The selected spec, and where to put the arguments, positional
+	 *            values and leftovers found on the command line.
+	 * @param it
+	 *            The tokens of the command line.
+	 * @param firstPosition
+	 *            The position of the next token on the command line.
+	 */
+	private void tokenize(final ParseContext context, final Iterator<String> it, final int firstPosition) {
+		for (int position = firstPosition; it.hasNext(); position++) {
+			final String argString = it.next();
+			if (context.endOfOptions) {
+				addOperand(context, argString, position);
+				continue;
+			}
+			int ordinal = resolveArgument(argString);
+			String call = argString;
+			if (ordinal < 0) {
+				final ArgSpec subcommandSpec = selectSubcommand(context, argString, position);
+				if (null != subcommandSpec) {
+					subcommandSpec.tokenize(context, it, position + 1);
+					return;
+				}
+				ordinal = options.compactSyntaxEnabled ? scanCompact(context, argString, position) : NOT_COMPACT;
+				if (NOT_COMPACT == ordinal) {
+					addUnknown(context, argString, position);
+				}
+				if (ordinal < 0) {
+					continue;
+				}
+				call = arguments.get(ordinal).getShortCall();
+			}
+			if (arguments.get(ordinal).isValueRequired() && it.hasNext()) {
+				record(context, ordinal, call, it.next(), position++);
+			} else {
+				record(context, ordinal, call, null, position);
+			}
+		}
+	}
+
+	/**
+	 * Walks through a command line held in a single string, like
+	 * {@link #tokenize(ParseContext, Iterator, int)}. The calls are resolved on
+	 * the token views, and only the values, positional values and leftovers
+	 * become Strings.
+	 */
+	private void tokenize(final ParseContext context, final CommandStringTokenizer tokens, final int firstPosition) {
+		for (int position = firstPosition; tokens.advance(); position++) {
+			if (context.endOfOptions) {
+				addOperand(context, tokens.toString(), position);
+				continue;
+			}
+			int ordinal = resolveArgument(tokens);
+			final String call;
+			if (ordinal < 0) {
+				final ArgSpec subcommandSpec = selectSubcommand(context, tokens, position);
+				if (null != subcommandSpec) {
+					subcommandSpec.tokenize(context, tokens, position + 1);
+					return;
+				}
+				ordinal = options.compactSyntaxEnabled ? scanCompact(context, tokens, position) : NOT_COMPACT;
+				if (NOT_COMPACT == ordinal) {
+					addUnknown(context, tokens.toString(), position);
+				}
+				if (ordinal < 0) {
+					continue;
+				}
+				call = arguments.get(ordinal).getShortCall();
+			} else {
+				call = getCall(arguments.get(ordinal), tokens, 0, tokens.length());
+			}
+			if (arguments.get(ordinal).isValueRequired() && tokens.advance()) {
+				record(context, ordinal, call, tokens.toString(), position++);
+			} else {
+				record(context, ordinal, call, null, position);
+			}
+		}
+	}
+
+	/**
+	 * Scans a token that is not a call for the compact syntax, in a single pass
+	 * over its characters : the "--" end of options, a --long=value call, or a
+	 * cluster of short calls whose last one may have an attached value. The calls
+	 * are found by index ranges of the token, and only the values become Strings.
+	 * A token not wholly made of calls is left untouched.
+	 *
+	 * @param context
+	 *            Where to record the calls found.
+	 * @param token
+	 *            The token.
+	 * @param position
+	 *            The position of the token on the command line.
+	 * @return {@link #NOT_COMPACT} if the token is not in the compact syntax,
+	 *         {@link #COMPACT} if it is recorded, or the ordinal of the last
+	 *         short call of a cluster, whose value is the next token.
+	 */
+	private int scanCompact(final ParseContext context, final CharSequence token, final int position) {
+		final int length = token.length();
+		if ((length < 2) || ('-' != token.charAt(0))) {
+			return NOT_COMPACT;
+		}
+		if ('-' == token.charAt(1)) {
+			if (2 == length) {
+				context.endOfOptions = true;
+				return COMPACT;
+			}
+			final int equals = findValueSeparator(token);
+			final int ordinal = equals < 0 ? -1 : resolveArgument(token, 0, equals);
+			if ((ordinal < 0) || !arguments.get(ordinal).isValueRequired()) {
+				return NOT_COMPACT;
+			}
+			record(context, ordinal, getCall(arguments.get(ordinal), token, 0, equals),
+					token.subSequence(equals + 1, length).toString(), position, true);
+			return COMPACT;
+		}
+		final int[] cluster = context.cluster(length);
+		int size = 0;
+		int index = 1;
+		while (index < length) {
+			final long match = calls.matchShortCall(token, index);
+			if (match < 0) {
+				return NOT_COMPACT;
+			}
+			cluster[size++] = (int) (match >>> 32);
+			index = (int) match;
+			if (arguments.get(cluster[size - 1]).isValueRequired()) {
+				break;
+			}
+		}
+		final int last = cluster[size - 1];
+		for (int i = 0; i < size - 1; i++) {
+			record(context, cluster[i], arguments.get(cluster[i]).getShortCall(), null, position);
+		}
+		if (!arguments.get(last).isValueRequired()) {
+			record(context, last, arguments.get(last).getShortCall(), null, position);
+			return COMPACT;
+		}
+		if (index < length) {
+			record(context, last, arguments.get(last).getShortCall(), token.subSequence(index, length).toString(),
+					position, true);
+			return COMPACT;
+		}
+		return last;
+	}
+
+	/**
+	 * @return The index of the '=' ending the call of a --long=value token, or
+	 *         -1 if there is none.
+	 */
+	private static int findValueSeparator(final CharSequence token) {
+		for (int index = 2; index < token.length(); index++) {
+			if ('=' == token.charAt(index)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Records an argument found on the command line, and the first short-circuit
+	 * argument met.
+	 */
+	private void record(final ParseContext context, final int ordinal, final String call, final String value,
+			final int position) {
+		record(context, ordinal, call, value, position, false);
+	}
+
+	/**
+	 * Records an argument found on the command line, like
+	 * {@link #record(ParseContext, int, String, String, int)}, telling if its
+	 * value is attached to the token of its call.
+	 */
+	private void record(final ParseContext context, final int ordinal, final String call, final String value,
+			final int position, final boolean valueAttached) {
+		context.parsedValues.set(ordinal, call, value, position, valueAttached);
+		if ((context.shortCircuitOrdinal < 0) && arguments.get(ordinal).isShortCircuit()) {
+			context.shortCircuitOrdinal = ordinal;
+		}
+	}
+
+	/**
+	 * Selects the subcommand named by a token that is not a call, compiling its
+	 * spec the first time it is met. The names are compared to the token itself,
+	 * so no String is created for a token view. A subcommand that cannot be
+	 * compiled is reported in the errors of the context.
+	 *
+	 * @return The spec of the selected subcommand, or null if the token names no
+	 *         subcommand, names one that cannot be compiled or comes after a
+	 *         positional value.
+	 */
+	private ArgSpec selectSubcommand(final ParseContext context, final CharSequence token, final int position) {
+		if (subcommands.isEmpty() || (context.parsedValues.getPositionalCount() > 0)) {
+			return null;
+		}
+		for (final String name : subcommands.keySet()) {
+			if (name.contentEquals(token)) {
+				final ArgSpec subcommandSpec;
+				try {
+					subcommandSpec = getSubcommand(name);
+				} catch (final IllegalStateException e) {
+					context.errors.add(new ParseError(ParseError.Kind.SUBCOMMAND, null, name, position, e.getMessage()));
+					return null;
+				}
+				context.selectSubcommand(subcommandSpec);
+				return subcommandSpec;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a token that is neither a call, a value nor a subcommand to the
+	 * positional values if it can be one, or to the leftovers.
+	 */
+	private void addUnknown(final ParseContext context, final String token, final int position) {
+		if ((null != positional) && isPositionalToken(token)) {
+			addPositional(context, token);
+		} else {
+			context.leftovers.add(token);
+			context.parsedValues.addLeftoverPosition(position);
+		}
+	}
+
+	/**
+	 * Adds a token following the "--" end of options to the positional values,
+	 * whatever its first character, or to the leftovers if there are none.
+	 */
+	private void addOperand(final ParseContext context, final String token, final int position) {
+		if (null != positional) {
+			addPositional(context, token);
+		} else {
+			context.leftovers.add(token);
+			context.parsedValues.addLeftoverPosition(position);
+		}
+	}
+
+	/**
+	 * @return The registered call matching a range of the token, so no String is
+	 *         created, or the range itself if it is an abbreviation.
+	 */
+	private static String getCall(final Argument argument, final CharSequence token, final int start,
+			final int end) {
+		if (regionEquals(argument.getLongCall(), token, start, end)) {
+			return argument.getLongCall();
+		}
+		if (regionEquals(argument.getShortCall(), token, start, end)) {
+			return argument.getShortCall();
+		}
+		return token.subSequence(start, end).toString();
+	}
+
+	private static boolean regionEquals(final String call, final CharSequence token, final int start,
+			final int end) {
+		if (call.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < call.length(); i++) {
+			if (call.charAt(i) != token.charAt(start + i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return True if the token that is not a call can be a positional value,
+	 *         that is "-" or anything not starting with "-".
+	 */
+	private static boolean isPositionalToken(final CharSequence token) {
+		return (0 == token.length()) || ('-' != token.charAt(0)) || (1 == token.length());
+	}
+
+	/**
+	 * Counts a positional value, then collects it or hands it over to the
+	 * consumer, unless it is beyond the max arity.
+	 */
+	private void addPositional(final ParseContext context, final String value) {
+		if (context.parsedValues.addPositional() > positional.getMaxArity()) {
+			return;
+		}
+		if (positional.isStreamed()) {
+			positional.getConsumer().accept(value);
+		} else {
+			context.positionals.add(value);
+		}
+	}
+
+	/**
+	 * Checks if the number of positional values fits their arity.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line.
+	 * @param errors
+	 *            Where to report too few or too many positional values.
+	 */
+	private void checkPositionalArity(final ParsedValues parsedValues, final List<ParseError> errors) {
+		if (null == positional) {
+			return;
+		}
+		final long count = parsedValues.getPositionalCount();
+		final String error;
+		if (count < positional.getMinArity()) {
+			error = String.format("At least %1$d values are required for %2$s, %3$d found !",
+					positional.getMinArity(), positional.getName(), count);
+		} else if (count > positional.getMaxArity()) {
+			error = String.format("At most %1$d values are allowed for %2$s, %3$d found !",
+					positional.getMaxArity(), positional.getName(), count);
+		} else {
+			return;
+		}
+		errors.add(new ParseError(ParseError.Kind.POSITIONAL_ARITY, null, null, -1, error));
+	}
+
+	/**
+	 * Checks if every mandatory argument is present on the command line.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line.
+	 * @param errors
+	 *            Where to report the mandatory arguments not found on the command
+	 *            line.
+	 */
+	private void checkMandatoryArguments(final ParsedValues parsedValues, final List<ParseError> errors) {
+		for (int ordinal = 0; ordinal < arguments.size(); ordinal++) {
+			final Argument argument = arguments.get(ordinal);
+			if (argument.isMandatory() && !parsedValues.isPresent(ordinal)) {
+				errors.add(new ParseError(ParseError.Kind.MISSING_ARGUMENT, argument, null, -1,
+						String.format("The argument %1$s is required !", argument.getLongCall())));
+			}
+		}
+	}
+
+	/**
+	 * Validates the values of the arguments on the command line. For each argument
+	 * that requires a value, it checks if the value is present and if the validator
+	 * of the registered argument validates it or not. If a validation executor is
+	 * set, the validators run concurrently, each within the validator timeout
+	 * counted from the moment it starts running, so the time spent waiting for a
+	 * thread of the executor does not count, as long as it is shorter than the
+	 * timeout. A validator the executor rejects runs on the parsing thread.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line.
+	 * @param errors
+	 *            Where to report the missing, invalid or timed out values.
+	 */
+	private void validateArgumentValues(final ParsedValues parsedValues, final List<ParseError> errors) {
+		final List<ConcurrentValidation> validations = startValidations(parsedValues);
+		for (int position = 0; position < parsedValues.getPresentCount(); position++) {
+			final int ordinal = parsedValues.getOrdinalAt(position);
+			final Argument argument = arguments.get(ordinal);
+			if (!argument.isValueRequired()) {
+				continue;
+			}
+			if (null == parsedValues.getValue(ordinal)) {
+				errors.add(new ParseError(ParseError.Kind.MISSING_VALUE, argument,
+						parsedValues.getCommandArg(ordinal), parsedValues.getPosition(ordinal),
+						String.format("The argument %1$s has no value !", parsedValues.getCommandArg(ordinal))));
+			} else if ((null == validations) || (null == validations.get(position))) {
+				if (!validateValue(parsedValues, ordinal)) {
+					errors.add(getInvalidValueError(parsedValues, ordinal));
+				}
+			} else {
+				final ParseError error = awaitValidation(parsedValues, ordinal, validations.get(position));
+				if (null != error) {
+					errors.add(error);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Submits the validation of every value to the validation executor.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line.
+	 * @return The validations, indexed by command line position and null for an
+	 *         argument without value or a validation rejected by the executor,
+	 *         which then runs on the parsing thread, or null if the validators run
+	 *         one after the other.
+	 */
+	private List<ConcurrentValidation> startValidations(final ParsedValues parsedValues) {
+		if ((null == options.validationExecutor) || (0 == parsedValues.getPresentCount())) {
+			return null;
+		}
+		final List<ConcurrentValidation> validations = new ArrayList<>(parsedValues.getPresentCount());
+		for (int position = 0; position < parsedValues.getPresentCount(); position++) {
+			final int ordinal = parsedValues.getOrdinalAt(position);
+			if (!arguments.get(ordinal).isValueRequired() || (null == parsedValues.getValue(ordinal))) {
+				validations.add(null);
+				continue;
+			}
+			final ConcurrentValidation validation = new ConcurrentValidation(arguments.get(ordinal),
+					parsedValues.getCommandArg(ordinal), parsedValues.getValue(ordinal));
+			try {
+				options.validationExecutor.execute(validation);
+			} catch (final RejectedExecutionException e) {
+				validations.add(null);
+				continue;
+			}
+			validations.add(validation);
+		}
+		return validations;
+	}
+
+	/**
+	 * Waits for a concurrent validation, then copies the converted value of a
+	 * valid {@link TypedArgument} into the results.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line.
+	 * @param ordinal
+	 *            The ordinal of the argument being validated.
+	 * @param validation
+	 *            The submitted validation.
+	 * @return The error, or null if the value is valid.
+	 */
+	private ParseError awaitValidation(final ParsedValues parsedValues, final int ordinal,
+			final ConcurrentValidation validation) {
+		final Boolean valid;
+		try {
+			valid = validation.await(null == options.validatorTimeout ? 0 : options.validatorTimeout.toNanos());
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return getTimeoutError(parsedValues, ordinal);
+		}
+		if (null == valid) {
+			return getTimeoutError(parsedValues, ordinal);
+		}
+		if (!valid) {
+			return getInvalidValueError(parsedValues, ordinal);
+		}
+		if (arguments.get(ordinal) instanceof TypedArgument) {
+			parsedValues.setLongValue(ordinal, validation.converted.getLongValue(0));
+			parsedValues.setDoubleValue(ordinal, validation.converted.getDoubleValue(0));
+			parsedValues.setTypedValue(ordinal, validation.converted.getTypedValue(0));
+		}
+		return null;
+	}
+
+	private ParseError getTimeoutError(final ParsedValues parsedValues, final int ordinal) {
+		return getValueError(ParseError.Kind.VALIDATION_TIMEOUT, parsedValues, ordinal,
+				String.format("The validation of the value %1$s for the argument %2$s timed out !",
+						parsedValues.getValue(ordinal), parsedValues.getCommandArg(ordinal)));
+	}
+
+	private ParseError getInvalidValueError(final ParsedValues parsedValues, final int ordinal) {
+		return getValueError(ParseError.Kind.INVALID_VALUE, parsedValues, ordinal,
+				String.format("The value %1$s for the argument %2$s is not valid !", parsedValues.getValue(ordinal),
+						parsedValues.getCommandArg(ordinal)));
+	}
+
+	/**
+	 * Builds the error of a value, located at the token holding it, right after
+	 * the call of its argument or the call itself for an attached value, or
+	 * nowhere if it comes from a fallback source.
+	 */
+	private ParseError getValueError(final ParseError.Kind kind, final ParsedValues parsedValues, final int ordinal,
+			final String message) {
+		return new ParseError(kind, arguments.get(ordinal), parsedValues.getValue(ordinal),
+				parsedValues.getValuePosition(ordinal), message);
+	}
+
+	/**
+	 * Checks a value found on the command line with the validator of its
+	 * argument, then converts it if the argument is a {@link TypedArgument}.
+	 *
+	 * @param parsedValues
+	 *            The arguments found on the command line.
+	 * @param ordinal
+	 *            The ordinal of an argument holding a value.
+	 * @return True if the value is valid.
+	 */
+	private boolean validateValue(final ParsedValues parsedValues, final int ordinal) {
+		return validateValue(arguments.get(ordinal), parsedValues, ordinal);
+	}
+
+	/**
+	 * Checks a value with the validator of an argument, then converts it if the
+	 * argument is a {@link TypedArgument}.
+	 *
+	 * @param argument
+	 *            The argument.
+	 * @param values
+	 *            The results holding the value, where the converted value is
+	 *            stored.
+	 * @param slot
+	 *            The index of the value in the results.
+	 * @return True if the value is valid.
+	 */
+	private boolean validateValue(final Argument argument, final ParsedValues values, final int slot) {
+		final ParseListener listener = options.parseListener;
+		if (null == listener) {
+			return runValidator(argument, values, slot);
+		}
+		final long start = System.nanoTime();
+		final boolean valid = runValidator(argument, values, slot);
+		listener.validatorCompleted(argument, System.nanoTime() - start, valid);
+		return valid;
+	}
+
+	/**
+	 * Runs the validator and the conversion of a value. A validator or a
+	 * conversion throwing an exception invalidates the value, so a parse that
+	 * never throws keeps that promise.
+	 */
+	private static boolean runValidator(final Argument argument, final ParsedValues values, final int slot) {
+		try {
+			final Predicate<String> validator = argument.getValidator();
+			if ((null != validator) && !validator.test(values.getValue(slot))) {
+				return false;
+			}
+			return !(argument instanceof TypedArgument) || ((TypedArgument) argument).convert(values, slot);
+		} catch (final RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The validation of a value on the validation executor. Its timeout starts
+	 * when it starts running, not when it is submitted. The validator works on
+	 * results of its own, holding a copy of the value and its converted form,
+	 * which the parse copies back only if the validator completed in time : a
+	 * validator still running past its timeout cannot be stopped, but it never
+	 * writes into results already returned, or reused by the next parse of a
+	 * {@link ParseContext}. A validation still waiting for a thread of the
+	 * executor once the timeout has elapsed times out, and the executor then
+	 * skips it.
+	 */
+	private final class ConcurrentValidation implements Runnable {
+
+		private final Argument argument;
+
+		/**
+		 * The value, in the slot 0, and its converted form.
+		 */
+		private final ParsedValues converted;
+
+		/**
+		 * The System.nanoTime() when the validator started, or 0.
+		 */
+		private long startTime;
+
+		private boolean done;
+
+		private boolean valid;
+
+		private boolean abandoned;
+
+		ConcurrentValidation(final Argument argument, final String call, final String value) {
+			this.argument = argument;
+			converted = new ParsedValues(1, argument instanceof TypedArgument);
+			converted.set(0, call, value, -1);
+		}
+
+		@Override
+		public void run() {
+			synchronized (this) {
+				if (abandoned) {
+					return;
+				}
+				startTime = System.nanoTime();
+				// Wakes up the parsing thread, so it starts counting the timeout.
+				notifyAll();
+			}
+			final boolean result = validateValue(argument, converted, 0);
+			synchronized (this) {
+				valid = result;
+				done = true;
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Waits for the validator, abandoning it once it has run for longer than
+		 * the timeout. A validator still waiting for a thread of the executor is
+		 * abandoned too once it has waited for longer than the timeout, so a
+		 * saturated executor cannot block the parse forever.
+		 *
+		 * @param timeoutNanos
+		 *            The timeout, or 0 for no limit.
+		 * @return True if the value is valid, false if not, or null if the
+		 *         validator timed out.
+		 * @throws InterruptedException
+		 *             If the parsing thread is interrupted, the validation is
+		 *             abandoned.
+		 */
+		synchronized Boolean await(final long timeoutNanos) throws InterruptedException {
+			final long startDeadline = System.nanoTime() + timeoutNanos;
+			try {
+				while (!done) {
+					if (0 == timeoutNanos) {
+						wait();
+						continue;
+					}
+					final long deadline = 0 == startTime ? startDeadline : startTime + timeoutNanos;
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						abandoned = true;
+						return null;
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+			} catch (final InterruptedException e) {
+				abandoned = true;
+				throw e;
+			}
+			return valid;
+		}
+
+	}
+
+	/**
+	 * Checks if there are left over Strings in the command line after parsing it.
+	 * If forbidLeftovers is false, this method does nothing. A leftover looking
+	 * like a mistyped call gets the closest registered call as a suggestion.
+	 *
+	 * @param forbidLeftovers
+	 *            If leftovers are forbidden or not.
+	 * @param leftovers
+	 *            The strings of the command line that were not consumed.
+	 * @param parsedValues
+	 *            The arguments found on the command line, holding the positions
+	 *            of the leftovers.
+	 * @param errors
+	 *            Where to report the leftovers when they are forbidden.
+	 */
+	private void checkLeftovers(final boolean forbidLeftovers, final List<String> leftovers,
+			final ParsedValues parsedValues, final List<ParseError> errors) {
+		if (!forbidLeftovers) {
+			return;
+		}
+		for (int i = 0; i < leftovers.size(); i++) {
+			final String leftover = leftovers.get(i);
+			errors.add(new ParseError(ParseError.Kind.UNUSED_ARGUMENT, null, leftover,
+					parsedValues.getLeftoverPosition(i), getLeftoverMessage(leftover)));
+		}
+	}
+
+	private String getLeftoverMessage(final String leftover) {
+		final String suggestion = leftover.startsWith("-") ? calls.suggest(leftover) : null;
+		return null == suggestion ? String.format("The argument %s was not used.", leftover)
+				: String.format("The argument %1$s was not used. Did you mean %2$s ?", leftover, suggestion);
+	}
+
+	/**
+	 * Finds an argument on the command line, from its short or long version, given
+	 * the String parameter. If the abbreviations are enabled, a long call can also
+	 * be shortened to any of its prefixes used by no other argument.
+	 *
+	 * @param argString
+	 *            The string representation of the argument.
+	 * @return The ordinal of the registered argument using this call, or -1 if
+	 *         there is none.
+	 */
+	private int resolveArgument(final CharSequence argString) {
+		return resolveArgument(argString, 0, argString.length());
+	}
+
+	/**
+	 * Finds an argument from the call held by a range of a token, like
+	 * {@link #resolveArgument(CharSequence)}.
+	 */
+	private int resolveArgument(final CharSequence token, final int start, final int end) {
+		return options.abbreviationsEnabled ? calls.getByPrefix(token, start, end) : calls.get(token, start, end);
+	}
+
+}
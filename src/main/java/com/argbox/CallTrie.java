@@ -0,0 +1,296 @@
+package com.argbox;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.argbox.model.Argument;
+
+/**
+ * Prefix tree of the short and long calls of a compiled {@link ArgSpec}. It
+ * resolves the exact calls, the unique-prefix abbreviations of the long calls,
+ * and finds the closest call to a mistyped one by walking the tree with a
+ * bounded edit distance, so whole branches are skipped as soon as they are too
+ * far from the typed call. The tree is immutable once built, and thread-safe.
+ */
+final class CallTrie {
+
+	private final Node root = new Node();
+
+	/**
+	 * Builds the tree of the calls of the given arguments, each argument being
+	 * identified by its index in the list.
+	 *
+	 * @param arguments
+	 *            The arguments, whose calls are expected to be unique.
+	 */
+	CallTrie(final List<Argument> arguments) {
+		for (int ordinal = 0; ordinal < arguments.size(); ordinal++) {
+			insert(arguments.get(ordinal).getShortCall(), ordinal);
+			insert(arguments.get(ordinal).getLongCall(), ordinal);
+		}
+	}
+
+	private void insert(final String call, final int ordinal) {
+		Node node = root;
+		node.mark(ordinal);
+		for (int i = 0; i < call.length(); i++) {
+			node = node.getOrAddChild(call.charAt(i));
+			node.mark(ordinal);
+		}
+		node.ordinal = ordinal;
+		node.call = call;
+	}
+
+	/**
+	 * Finds the argument using exactly the given call.
+	 *
+	 * @param call
+	 *            The call, as typed on the command line.
+	 * @return The ordinal of the argument, or -1 if no argument uses this call.
+	 */
+	int get(final CharSequence call) {
+		return get(call, 0, call.length());
+	}
+
+	/**
+	 * Finds the argument using exactly the call held by a range of a token, like
+	 * the call of a --long=value token, without copying it.
+	 *
+	 * @param token
+	 *            The token holding the call.
+	 * @param start
+	 *            The index of the call in the token.
+	 * @param end
+	 *            The index after the call in the token.
+	 * @return The ordinal of the argument, or -1 if no argument uses this call.
+	 */
+	int get(final CharSequence token, final int start, final int end) {
+		final Node node = find(token, start, end);
+		return null == node ? -1 : node.ordinal;
+	}
+
+	/**
+	 * Finds the argument using the given call, or whose long call is the only one
+	 * starting with the given call. Only calls starting with "--" can be
+	 * abbreviated, and an abbreviation shared by two arguments matches none.
+	 *
+	 * @param call
+	 *            The call or abbreviation, as typed on the command line.
+	 * @return The ordinal of the argument, or -1 if the call matches no argument
+	 *         or more than one.
+	 */
+	int getByPrefix(final CharSequence call) {
+		return getByPrefix(call, 0, call.length());
+	}
+
+	/**
+	 * Finds the argument using the call held by a range of a token, or whose long
+	 * call is the only one starting with it. See {@link #getByPrefix(CharSequence)}.
+	 */
+	int getByPrefix(final CharSequence token, final int start, final int end) {
+		final Node node = find(token, start, end);
+		if (null == node) {
+			return -1;
+		}
+		if ((node.ordinal >= 0) || (end - start <= 2) || ('-' != token.charAt(start))
+				|| ('-' != token.charAt(start + 1))) {
+			return node.ordinal;
+		}
+		return node.ambiguous ? -1 : node.unique;
+	}
+
+	/**
+	 * Finds the longest short call at the start of a cluster of short calls,
+	 * like "-v" in "-vqx" or "-n" in "-nBob". The leading '-' of the call is
+	 * implied, so the calls after the first one of the cluster are found the
+	 * same way, from their first character.
+	 *
+	 * @param token
+	 *            The token holding the cluster.
+	 * @param start
+	 *            The index of the character following the implied '-'.
+	 * @return -1 if no short call starts there, or the ordinal of the argument
+	 *         in the high 32 bits and the index after the call in the low ones.
+	 */
+	long matchShortCall(final CharSequence token, final int start) {
+		Node node = root.getChild('-');
+		long match = -1;
+		for (int i = start; (null != node) && (i < token.length()); i++) {
+			node = node.getChild(token.charAt(i));
+			if ((null != node) && (node.ordinal >= 0)) {
+				match = ((long) node.ordinal << 32) | (i + 1);
+			}
+		}
+		return match;
+	}
+
+	/**
+	 * Lists the calls starting with the given prefix, in character order.
+	 *
+	 * @param prefix
+	 *            The start of the calls, possibly empty.
+	 * @param out
+	 *            Where to add the calls.
+	 */
+	void collect(final CharSequence prefix, final List<String> out) {
+		final Node node = find(prefix, 0, prefix.length());
+		if (null != node) {
+			node.collect(out);
+		}
+	}
+
+	private Node find(final CharSequence token, final int start, final int end) {
+		Node node = root;
+		for (int i = start; (null != node) && (i < end); i++) {
+			node = node.getChild(token.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Finds the registered call closest to the given one, counting insertions,
+	 * deletions, substitutions and swaps of two adjacent characters. Short typed
+	 * calls get a smaller distance, so "-x" never suggests "-v".
+	 *
+	 * @param call
+	 *            The mistyped call.
+	 * @return The closest call, or null if no call is close enough.
+	 */
+	String suggest(final String call) {
+		int nameLength = call.length();
+		for (int i = 0; (i < 2) && (i < call.length()) && ('-' == call.charAt(i)); i++) {
+			nameLength--;
+		}
+		final int maxDistance = Math.min(2, nameLength / 3);
+		if (maxDistance < 1) {
+			return null;
+		}
+		final Suggestion suggestion = new Suggestion(call.toCharArray(), maxDistance);
+		final int[] firstRow = new int[call.length() + 1];
+		for (int j = 0; j < firstRow.length; j++) {
+			firstRow[j] = j;
+		}
+		for (int i = 0; i < root.keys.length; i++) {
+			suggestion.walk(root.children[i], root.keys[i], (char) 0, null, firstRow);
+		}
+		return suggestion.bestCall;
+	}
+
+	/**
+	 * Walks the tree, computing one row of the optimal string alignment distance
+	 * matrix per node.
+	 */
+	private static class Suggestion {
+
+		private final char[] typed;
+
+		private int bound;
+
+		private String bestCall;
+
+		Suggestion(final char[] typed, final int maxDistance) {
+			this.typed = typed;
+			bound = maxDistance;
+		}
+
+		void walk(final Node node, final char key, final char parentKey, final int[] grandParentRow,
+				final int[] parentRow) {
+			final int[] row = new int[parentRow.length];
+			row[0] = parentRow[0] + 1;
+			int rowMin = row[0];
+			for (int j = 1; j < row.length; j++) {
+				final int cost = typed[j - 1] == key ? 0 : 1;
+				int distance = Math.min(Math.min(parentRow[j] + 1, row[j - 1] + 1), parentRow[j - 1] + cost);
+				if ((null != grandParentRow) && (j > 1) && (typed[j - 1] == parentKey) && (typed[j - 2] == key)) {
+					distance = Math.min(distance, grandParentRow[j - 2] + 1);
+				}
+				row[j] = distance;
+				rowMin = Math.min(rowMin, distance);
+			}
+			if ((null != node.call) && (row[row.length - 1] <= bound)) {
+				bestCall = node.call;
+				bound = row[row.length - 1] - 1;
+			}
+			if (rowMin <= bound) {
+				for (int i = 0; i < node.keys.length; i++) {
+					walk(node.children[i], node.keys[i], key, parentRow, row);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A node of the tree, its children sorted by character.
+	 */
+	private static class Node {
+
+		private static final char[] NO_KEYS = {};
+
+		private static final Node[] NO_CHILDREN = {};
+
+		private char[] keys = NO_KEYS;
+
+		private Node[] children = NO_CHILDREN;
+
+		/**
+		 * The ordinal of the argument using the call ending on this node, or -1.
+		 */
+		private int ordinal = -1;
+
+		/**
+		 * The call ending on this node, if any.
+		 */
+		private String call;
+
+		/**
+		 * The ordinal of the argument of every call going through this node,
+		 * unless it is ambiguous.
+		 */
+		private int unique = -1;
+
+		private boolean ambiguous;
+
+		void mark(final int through) {
+			if (unique < 0) {
+				unique = through;
+			} else if (unique != through) {
+				ambiguous = true;
+			}
+		}
+
+		void collect(final List<String> out) {
+			if (null != call) {
+				out.add(call);
+			}
+			for (final Node child : children) {
+				child.collect(out);
+			}
+		}
+
+		Node getChild(final char key) {
+			final int index = Arrays.binarySearch(keys, key);
+			return index < 0 ? null : children[index];
+		}
+
+		Node getOrAddChild(final char key) {
+			int index = Arrays.binarySearch(keys, key);
+			if (index < 0) {
+				index = -index - 1;
+				final char[] newKeys = new char[keys.length + 1];
+				final Node[] newChildren = new Node[keys.length + 1];
+				System.arraycopy(keys, 0, newKeys, 0, index);
+				System.arraycopy(children, 0, newChildren, 0, index);
+				System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+				System.arraycopy(children, index, newChildren, index + 1, keys.length - index);
+				newKeys[index] = key;
+				newChildren[index] = new Node();
+				keys = newKeys;
+				children = newChildren;
+			}
+			return children[index];
+		}
+
+	}
+
+}
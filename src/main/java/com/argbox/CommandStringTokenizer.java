@@ -0,0 +1,192 @@
+package com.argbox;
+
+import java.nio.CharBuffer;
+
+/**
+ * Splits a whole command line held in a single {@link CharSequence}, like a
+ * line typed in a console or a {@link CharBuffer} read from a socket, the way a
+ * POSIX shell would. Tokens are separated by whitespace. Single quotes keep
+ * their content as is, double quotes keep their content but allow \" and \\
+ * escapes, and outside of quotes a backslash escapes the next character, as in
+ * argument files.
+ * <p>
+ * The tokenizer is itself a view of its current token : a token without quotes
+ * nor escapes is read straight from the source, and the others are unquoted
+ * into a buffer reused from one token to the next. No String is created unless
+ * {@link #toString()} is called, so the calls can be resolved without copying
+ * the command line. A tokenizer is used by a single thread, and can be reset for another
+ * command line.
+ */
+final class CommandStringTokenizer implements CharSequence {
+
+	private CharSequence source;
+
+	/**
+	 * The index of the source after the current token.
+	 */
+	private int cursor;
+
+	/**
+	 * The index of the source where the current token starts.
+	 */
+	private int start;
+
+	/**
+	 * The index of the source after the current token, if it is plain.
+	 */
+	private int end;
+
+	/**
+	 * True if the current token is a range of the source, false if it is held
+	 * by {@link #unquoted}.
+	 */
+	private boolean plain = true;
+
+	/**
+	 * The current token once unquoted, created with the first quoted token.
+	 */
+	private StringBuilder unquoted;
+
+	/**
+	 * The index of the quote left open at the end of the source, or -1.
+	 */
+	private int unclosedQuote = -1;
+
+	/**
+	 * @param source
+	 *            The command line, read from its start to its end and never
+	 *            modified.
+	 */
+	CommandStringTokenizer(final CharSequence source) {
+		this.source = source;
+	}
+
+	/**
+	 * Starts over with another command line, keeping the unquoted buffer.
+	 *
+	 * @param newSource
+	 *            The command line.
+	 */
+	void reset(final CharSequence newSource) {
+		source = newSource;
+		cursor = 0;
+		start = 0;
+		end = 0;
+		plain = true;
+		unclosedQuote = -1;
+	}
+
+	/**
+	 * Moves to the next token of the command line.
+	 *
+	 * @return True if there is a next token, false at the end of the command line
+	 *         or if it ends inside quotes, see {@link #getUnclosedQuote()}.
+	 */
+	boolean advance() {
+		final int length = source.length();
+		while ((cursor < length) && Character.isWhitespace(source.charAt(cursor))) {
+			cursor++;
+		}
+		if (cursor >= length) {
+			return false;
+		}
+		start = cursor;
+		plain = true;
+		while ((cursor < length) && !Character.isWhitespace(source.charAt(cursor))) {
+			final char c = source.charAt(cursor);
+			if (('\'' == c) || ('"' == c)) {
+				unquote();
+				final int quoteIndex = cursor;
+				if (!readQuoted(c)) {
+					unclosedQuote = quoteIndex;
+					return false;
+				}
+			} else if ('\\' == c) {
+				unquote();
+				if (++cursor < length) {
+					unquoted.append(source.charAt(cursor++));
+				}
+			} else {
+				if (!plain) {
+					unquoted.append(c);
+				}
+				cursor++;
+			}
+		}
+		end = cursor;
+		return true;
+	}
+
+	/**
+	 * Copies the plain part of the current token to the unquoted buffer, the
+	 * first time a quote or an escape is met in the token.
+	 */
+	private void unquote() {
+		if (!plain) {
+			return;
+		}
+		if (null == unquoted) {
+			unquoted = new StringBuilder();
+		}
+		unquoted.setLength(0);
+		unquoted.append(source, start, cursor);
+		plain = false;
+	}
+
+	/**
+	 * Appends the content of quotes to the current token.
+	 *
+	 * @param quote
+	 *            The opening quote, at the cursor.
+	 * @return False if the quotes are never closed.
+	 */
+	private boolean readQuoted(final char quote) {
+		final int length = source.length();
+		cursor++;
+		while (cursor < length) {
+			final char c = source.charAt(cursor++);
+			if (quote == c) {
+				return true;
+			}
+			if (('"' == quote) && ('\\' == c) && (cursor < length)
+					&& (('"' == source.charAt(cursor)) || ('\\' == source.charAt(cursor)))) {
+				unquoted.append(source.charAt(cursor++));
+			} else {
+				unquoted.append(c);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The index in the command line of the quote that is never closed, or
+	 *         -1.
+	 */
+	int getUnclosedQuote() {
+		return unclosedQuote;
+	}
+
+	@Override
+	public int length() {
+		return plain ? end - start : unquoted.length();
+	}
+
+	@Override
+	public char charAt(final int index) {
+		return plain ? source.charAt(start + index) : unquoted.charAt(index);
+	}
+
+	@Override
+	public CharSequence subSequence(final int from, final int to) {
+		return plain ? source.subSequence(start + from, start + to) : unquoted.subSequence(from, to);
+	}
+
+	/**
+	 * Creates a String of the current token, for the tokens that are kept.
+	 */
+	@Override
+	public String toString() {
+		return plain ? source.subSequence(start, end).toString() : unquoted.toString();
+	}
+
+}
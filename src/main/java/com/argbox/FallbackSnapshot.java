@@ -0,0 +1,80 @@
+package com.argbox;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+
+import com.argbox.model.FallbackSource;
+
+/**
+ * The fallback sources as seen by a single parse. Each source is read on the
+ * first lookup needing it, then kept for the rest of the parse, so a parse
+ * never sees two versions of a source and never reads a source it does not
+ * need. Not thread-safe : one snapshot per parse.
+ */
+final class FallbackSnapshot {
+
+	private final Path propertiesFile;
+
+	private Map<String, String> environment;
+
+	private Properties systemProperties;
+
+	private Properties fileProperties;
+
+	/**
+	 * @param propertiesFile
+	 *            The properties file of the {@link FallbackSource.Kind#PROPERTIES_FILE}
+	 *            sources, or null if there is none.
+	 */
+	FallbackSnapshot(final Path propertiesFile) {
+		this.propertiesFile = propertiesFile;
+	}
+
+	/**
+	 * Looks for a value in a source.
+	 *
+	 * @param source
+	 *            The source.
+	 * @return The value, or null if the source has none.
+	 * @throws IOException
+	 *             If the properties file exists but cannot be read.
+	 */
+	String get(final FallbackSource source) throws IOException {
+		switch (source.getKind()) {
+		case ENVIRONMENT:
+			if (null == environment) {
+				environment = System.getenv();
+			}
+			return environment.get(source.getKey());
+		case SYSTEM_PROPERTY:
+			if (null == systemProperties) {
+				systemProperties = (Properties) System.getProperties().clone();
+			}
+			return systemProperties.getProperty(source.getKey());
+		default:
+			if (null == fileProperties) {
+				fileProperties = loadPropertiesFile();
+			}
+			return fileProperties.getProperty(source.getKey());
+		}
+	}
+
+	/**
+	 * Reads the properties file as UTF-8. A missing file has no value.
+	 */
+	private Properties loadPropertiesFile() throws IOException {
+		final Properties properties = new Properties();
+		if ((null != propertiesFile) && Files.exists(propertiesFile)) {
+			try (Reader reader = Files.newBufferedReader(propertiesFile, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+		}
+		return properties;
+	}
+
+}
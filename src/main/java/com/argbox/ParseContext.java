@@ -0,0 +1,277 @@
+package com.argbox;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.argbox.model.ParsedValues;
+
+/**
+ * The working state of a parse, reset and reused from one parse to the next so
+ * a program parsing small command lines in a tight loop does not allocate on
+ * each of them. The results arrays, the lists, the token iterator and the
+ * {@link ParsedCommandLine} of the last spec and subcommand met are created by
+ * the first parse and then reused : a successful parse only allocates the
+ * values it keeps, like the command line Strings or the converted values, and
+ * the fallback sources, argument files and concurrent validations when they are
+ * used.
+ * <p>
+ * The command line returned by a parse with a context is a view of the
+ * context : it is only valid until the next parse with the same context. A
+ * context is not thread-safe. Own one per thread, or use
+ * {@link #forCurrentThread()}, and never parse with a context from a consumer
+ * of positional values fed by a parse with the same context.
+ */
+public final class ParseContext {
+
+	private static final ThreadLocal<ParseContext> THREAD_CONTEXTS = ThreadLocal.withInitial(ParseContext::new);
+
+	/**
+	 * True if the results of a parse are reused by the next one.
+	 */
+	private final boolean reusable;
+
+	/**
+	 * The results of the last root spec parsed, when reusable. Only the last one
+	 * is kept, so a context living as long as its thread does not keep every spec
+	 * compiled since.
+	 */
+	private Slot rootSlot;
+
+	/**
+	 * The results of the last subcommand selected, when reusable.
+	 */
+	private Slot subcommandSlot;
+
+	final List<String> leftovers = new ArrayList<>();
+
+	final List<String> positionals = new ArrayList<>();
+
+	final List<ParseError> errors = new ArrayList<>(0);
+
+	private final ArrayTokens arrayTokens = new ArrayTokens();
+
+	private CommandStringTokenizer commandTokens;
+
+	/**
+	 * The spec selected by the subcommands met so far.
+	 */
+	ArgSpec spec;
+
+	private Slot slot;
+
+	ParsedValues parsedValues;
+
+	/**
+	 * The ordinal of the first short-circuit argument met, or -1.
+	 */
+	int shortCircuitOrdinal = -1;
+
+	/**
+	 * True once the "--" token ending the calls is met.
+	 */
+	boolean endOfOptions;
+
+	/**
+	 * The ordinals of the calls of the cluster being scanned, created with the
+	 * first cluster.
+	 */
+	private int[] cluster;
+
+	/**
+	 * Builds a context owned by the caller, to be reused for many parses on a
+	 * single thread.
+	 */
+	public ParseContext() {
+		this(true);
+	}
+
+	private ParseContext(final boolean reusable) {
+		this.reusable = reusable;
+	}
+
+	/**
+	 * @return The context of the current thread, created on first use.
+	 */
+	public static ParseContext forCurrentThread() {
+		return THREAD_CONTEXTS.get();
+	}
+
+	/**
+	 * @return A context for a single parse, whose results are never reused.
+	 */
+	static ParseContext oneShot() {
+		return new ParseContext(false);
+	}
+
+	/**
+	 * Provides what the last parse with this context found on the command line,
+	 * even if it failed : the arguments, values, positional values and leftovers
+	 * of the selected spec, without telling if they passed the checks. Like the
+	 * command line of a successful parse, it is a view of the context.
+	 *
+	 * @return The command line resolved by the last parse, or null if there was
+	 *         none.
+	 */
+	public ParsedCommandLine getResolvedCommandLine() {
+		return null == spec ? null : success().getCommandLine();
+	}
+
+	/**
+	 * Starts a parse against the given spec, clearing the results of the last
+	 * one.
+	 *
+	 * @param rootSpec
+	 *            The spec parsing the command line.
+	 */
+	void reset(final ArgSpec rootSpec) {
+		leftovers.clear();
+		positionals.clear();
+		errors.clear();
+		shortCircuitOrdinal = -1;
+		endOfOptions = false;
+		rootSlot = select(rootSpec, rootSlot);
+	}
+
+	/**
+	 * Selects a subcommand, keeping the inherited arguments found so far.
+	 *
+	 * @param subcommandSpec
+	 *            The spec of the subcommand.
+	 */
+	void selectSubcommand(final ArgSpec subcommandSpec) {
+		final ParsedValues parentValues = parsedValues;
+		subcommandSlot = select(subcommandSpec, subcommandSlot);
+		parsedValues.inherit(parentValues);
+	}
+
+	/**
+	 * Selects a spec, reusing the results of the last parse if it selected the
+	 * same spec.
+	 *
+	 * @param selectedSpec
+	 *            The spec to select.
+	 * @param lastSlot
+	 *            The results of the last spec selected at this level, or null.
+	 * @return The results of the selected spec, to keep for the next parse.
+	 */
+	private Slot select(final ArgSpec selectedSpec, final Slot lastSlot) {
+		final Slot selectedSlot;
+		if (reusable && (null != lastSlot) && (lastSlot.spec == selectedSpec)) {
+			selectedSlot = lastSlot;
+			selectedSlot.values.reset();
+		} else {
+			selectedSlot = new Slot(selectedSpec, selectedSpec.newParsedValues());
+		}
+		spec = selectedSpec;
+		slot = selectedSlot;
+		parsedValues = selectedSlot.values;
+		return reusable ? selectedSlot : null;
+	}
+
+	/**
+	 * @param size
+	 *            The number of calls in a cluster of short calls.
+	 * @return A buffer of at least this size, reused by the next clusters.
+	 */
+	int[] cluster(final int size) {
+		if ((null == cluster) || (cluster.length < size)) {
+			cluster = new int[Math.max(8, size)];
+		}
+		return cluster;
+	}
+
+	/**
+	 * @return An iterator over the given tokens, reused by the next parse.
+	 */
+	Iterator<String> tokens(final String[] args) {
+		arrayTokens.reset(null == args ? ArrayTokens.NO_TOKENS : args);
+		return arrayTokens;
+	}
+
+	/**
+	 * @return A tokenizer of the given command line, reused by the next parse.
+	 */
+	CommandStringTokenizer tokens(final CharSequence commandLine) {
+		final CharSequence source = null == commandLine ? "" : commandLine;
+		if (null == commandTokens) {
+			commandTokens = new CommandStringTokenizer(source);
+		} else {
+			commandTokens.reset(source);
+		}
+		return commandTokens;
+	}
+
+	/**
+	 * @return The successful result of the parse, reused by the next successful
+	 *         parse of the same spec unless a short-circuit argument was met.
+	 */
+	ParseResult success() {
+		if (shortCircuitOrdinal >= 0) {
+			return ParseResult.success(new ParsedCommandLine(spec, parsedValues, leftovers, positionals,
+					spec.getArguments().get(shortCircuitOrdinal)));
+		}
+		if (null == slot.success) {
+			slot.success = ParseResult.success(new ParsedCommandLine(spec, parsedValues, leftovers, positionals, null));
+		}
+		return slot.success;
+	}
+
+	/**
+	 * @return The failed result of the parse, holding a copy of the errors.
+	 */
+	ParseResult failure() {
+		return ParseResult.failure(new ArrayList<>(errors));
+	}
+
+	/**
+	 * The results of the parses of a spec.
+	 */
+	private static final class Slot {
+
+		private final ArgSpec spec;
+
+		private final ParsedValues values;
+
+		private ParseResult success;
+
+		Slot(final ArgSpec spec, final ParsedValues values) {
+			this.spec = spec;
+			this.values = values;
+		}
+
+	}
+
+	/**
+	 * An iterator over an array of tokens, reset for each parse.
+	 */
+	private static final class ArrayTokens implements Iterator<String> {
+
+		private static final String[] NO_TOKENS = {};
+
+		private String[] tokens = NO_TOKENS;
+
+		private int index;
+
+		void reset(final String[] newTokens) {
+			tokens = newTokens;
+			index = 0;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < tokens.length;
+		}
+
+		@Override
+		public String next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return tokens[index++];
+		}
+
+	}
+
+}
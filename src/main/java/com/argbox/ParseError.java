@@ -0,0 +1,120 @@
+package com.argbox;
+
+import com.argbox.instrument.ParsePhase;
+import com.argbox.model.Argument;
+
+/**
+ * A problem found on a command line, as reported by
+ * {@link ArgSpec#tryParse(boolean, String...)}. It is built without any stack
+ * trace, so rejecting a command line costs no more than accepting it.
+ */
+public final class ParseError {
+
+	private static final String VALUES_SUMMARY = "One or more arguments have errors with their values !";
+
+	/**
+	 * The kinds of problems, each with the phase finding it and the summary
+	 * message of the exceptions reporting it.
+	 */
+	public enum Kind {
+
+		ARGUMENT_FILE(ParsePhase.TOKENIZE, "An argument file cannot be read !"),
+
+		PROPERTIES_FILE(ParsePhase.RESOLVE_FALLBACKS, "The properties file cannot be read !"),
+
+		UNCLOSED_QUOTE(ParsePhase.TOKENIZE, "The command line cannot be split !"),
+
+		SUBCOMMAND(ParsePhase.TOKENIZE, "A subcommand cannot be compiled !"),
+
+		MISSING_ARGUMENT(ParsePhase.CHECK_MANDATORY, "Some arguments are missing !"),
+
+		POSITIONAL_ARITY(ParsePhase.CHECK_MANDATORY, "The positional values are invalid !"),
+
+		MISSING_VALUE(ParsePhase.VALIDATE, VALUES_SUMMARY),
+
+		INVALID_VALUE(ParsePhase.VALIDATE, VALUES_SUMMARY),
+
+		VALIDATION_TIMEOUT(ParsePhase.VALIDATE, VALUES_SUMMARY),
+
+		UNUSED_ARGUMENT(ParsePhase.CHECK_LEFTOVERS, "There are unused arguments on the command line !");
+
+		private final ParsePhase phase;
+
+		private final String summary;
+
+		Kind(final ParsePhase phase, final String summary) {
+			this.phase = phase;
+			this.summary = summary;
+		}
+
+		public ParsePhase getPhase() {
+			return phase;
+		}
+
+		public String getSummary() {
+			return summary;
+		}
+
+	}
+
+	private final Kind kind;
+
+	private final Argument argument;
+
+	private final String token;
+
+	private final int position;
+
+	private final String message;
+
+	ParseError(final Kind kind, final Argument argument, final String token, final int position,
+			final String message) {
+		this.kind = kind;
+		this.argument = argument;
+		this.token = token;
+		this.position = position;
+		this.message = message;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * @return The argument in error, or null if the problem is not bound to an
+	 *         argument, like a leftover.
+	 */
+	public Argument getArgument() {
+		return argument;
+	}
+
+	/**
+	 * @return The token in error, like the invalid value or the leftover, or null
+	 *         if the problem is an absence.
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * @return The index of the token in the command line, argument files
+	 *         expanded, or -1 if the token is not on the command line.
+	 */
+	public int getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return The error message, as found in the errors of an
+	 *         {@link com.argbox.exception.ArgBoxException}.
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return message;
+	}
+
+}
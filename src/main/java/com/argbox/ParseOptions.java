@@ -0,0 +1,70 @@
+package com.argbox;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import com.argbox.instrument.ParseListener;
+
+/**
+ * The parsing options set on an {@link ArgBox}. A copy is frozen in each
+ * compiled {@link ArgSpec}, so changing the options of the ArgBox never alters
+ * a spec already in use.
+ */
+final class ParseOptions {
+
+	/**
+	 * True if the @file tokens of the command line are expanded into the tokens of
+	 * the argument files they designate.
+	 */
+	boolean argumentFilesEnabled;
+
+	/**
+	 * The executor running the validators concurrently, or null to run them one
+	 * after the other.
+	 */
+	Executor validationExecutor;
+
+	/**
+	 * How long a validator may run when the validators run concurrently, or null
+	 * for no limit.
+	 */
+	Duration validatorTimeout;
+
+	/**
+	 * True if a long call can be shortened to any of its prefixes used by no
+	 * other argument.
+	 */
+	boolean abbreviationsEnabled;
+
+	/**
+	 * True if the clustered short flags, the attached values and the "--" end of
+	 * options are recognized.
+	 */
+	boolean compactSyntaxEnabled;
+
+	/**
+	 * The listener receiving the timings of the parses, or null.
+	 */
+	ParseListener parseListener;
+
+	/**
+	 * The properties file of the {@link com.argbox.model.FallbackSource.Kind#PROPERTIES_FILE}
+	 * fallback sources, or null.
+	 */
+	Path propertiesFile;
+
+	ParseOptions() {
+	}
+
+	ParseOptions(final ParseOptions other) {
+		argumentFilesEnabled = other.argumentFilesEnabled;
+		validationExecutor = other.validationExecutor;
+		validatorTimeout = other.validatorTimeout;
+		abbreviationsEnabled = other.abbreviationsEnabled;
+		compactSyntaxEnabled = other.compactSyntaxEnabled;
+		parseListener = other.parseListener;
+		propertiesFile = other.propertiesFile;
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.argbox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.argbox.exception.ArgBoxException;
+import com.argbox.exception.StacklessArgBoxException;
+
+/**
+ * The outcome of {@link ArgSpec#tryParse(boolean, String...)} : either the
+ * parsed command line, or every problem found on it, all phases together.
+ */
+public final class ParseResult {
+
+	/**
+	 * The summary of an exception reporting problems of several kinds.
+	 */
+	private static final String MIXED_SUMMARY = "The command line is invalid !";
+
+	private final ParsedCommandLine commandLine;
+
+	private final List<ParseError> errors;
+
+	private ParseResult(final ParsedCommandLine commandLine, final List<ParseError> errors) {
+		this.commandLine = commandLine;
+		this.errors = errors;
+	}
+
+	static ParseResult success(final ParsedCommandLine commandLine) {
+		return new ParseResult(commandLine, Collections.emptyList());
+	}
+
+	static ParseResult failure(final List<ParseError> errors) {
+		return new ParseResult(null, Collections.unmodifiableList(errors));
+	}
+
+	/**
+	 * @return True if the command line is valid.
+	 */
+	public boolean isSuccess() {
+		return null != commandLine;
+	}
+
+	/**
+	 * @return The parsed command line, or null if it is invalid.
+	 */
+	public ParsedCommandLine getCommandLine() {
+		return commandLine;
+	}
+
+	/**
+	 * @return The problems found on the command line in phase order, or an empty
+	 *         list if it is valid.
+	 */
+	public List<ParseError> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Provides the parsed command line, or throws a
+	 * {@link StacklessArgBoxException} holding every error.
+	 *
+	 * @return The parsed command line.
+	 * @throws ArgBoxException
+	 *             If the command line is invalid.
+	 */
+	public ParsedCommandLine getCommandLineOrThrow() throws ArgBoxException {
+		if (!isSuccess()) {
+			throw toException(false);
+		}
+		return commandLine;
+	}
+
+	/**
+	 * Builds the exception reporting the errors. Its main message is the summary
+	 * of the kind of the errors, or a generic one if they are of several kinds.
+	 *
+	 * @param withStackTrace
+	 *            False to build a {@link StacklessArgBoxException}.
+	 * @return The exception, or null if the command line is valid.
+	 */
+	public ArgBoxException toException(final boolean withStackTrace) {
+		if (isSuccess()) {
+			return null;
+		}
+		String summary = errors.get(0).getKind().getSummary();
+		final List<String> messages = new ArrayList<>(errors.size());
+		for (final ParseError error : errors) {
+			if (!summary.equals(error.getKind().getSummary())) {
+				summary = MIXED_SUMMARY;
+			}
+			messages.add(error.getMessage());
+		}
+		return withStackTrace ? new ArgBoxException(summary, messages)
+				: new StacklessArgBoxException(summary, messages);
+	}
+
+}
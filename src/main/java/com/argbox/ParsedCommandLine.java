@@ -0,0 +1,278 @@
+package com.argbox;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.argbox.model.Argument;
+import com.argbox.model.ArgumentType;
+import com.argbox.model.ParsedArgument;
+import com.argbox.model.ParsedValues;
+import com.argbox.model.TypedArgument;
+
+/**
+ * The result of a successful {@link ArgSpec#parse(boolean, String...)}. A
+ * result of a parse without context is independent from any other parse and
+ * never modified after it, so it can be handed over to other threads.
+ * <p>
+ * A result of a parse with a {@link ParseContext}, like
+ * {@link ArgSpec#parse(ParseContext, boolean, String...)}, is a view of the
+ * context instead : it is only valid until the next parse with the same
+ * context, which overwrites it, and it must not be shared with other threads.
+ * Copy the values needed before parsing again.
+ * <p>
+ * The results are kept in flat arrays indexed by argument ordinal, and the
+ * typed getters read them directly. The {@link ParsedArgument} views are only
+ * created when asked for, then kept.
+ */
+public final class ParsedCommandLine {
+
+	private final ArgSpec spec;
+
+	private final ParsedValues parsedValues;
+
+	private final List<String> leftovers;
+
+	private final List<String> positionals;
+
+	private final Argument shortCircuitArgument;
+
+	/**
+	 * The views created so far, indexed by ordinal. Two threads may create the
+	 * same view, which is harmless as both read the same results.
+	 */
+	private final AtomicReferenceArray<ParsedArgument> views;
+
+	ParsedCommandLine(final ArgSpec spec, final ParsedValues parsedValues, final List<String> leftovers,
+			final List<String> positionals, final Argument shortCircuitArgument) {
+		this.spec = spec;
+		this.parsedValues = parsedValues;
+		this.leftovers = Collections.unmodifiableList(leftovers);
+		this.positionals = Collections.unmodifiableList(positionals);
+		this.shortCircuitArgument = shortCircuitArgument;
+		views = new AtomicReferenceArray<>(parsedValues.getArgumentCount());
+	}
+
+	/**
+	 * @return The spec that produced this command line.
+	 */
+	public ArgSpec getSpec() {
+		return spec;
+	}
+
+	/**
+	 * Finds a parsed argument from its name.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @return The parsed argument, or null if it was not on the command line.
+	 */
+	public ParsedArgument getParsedArgument(final String argName) {
+		final int ordinal = spec.getOrdinal(argName);
+		return (ordinal < 0) || !parsedValues.isPresent(ordinal) ? null : getView(ordinal);
+	}
+
+	private ParsedArgument getView(final int ordinal) {
+		ParsedArgument view = views.get(ordinal);
+		if (null == view) {
+			view = new ParsedArgument(spec.getArguments().get(ordinal), parsedValues, ordinal);
+			views.lazySet(ordinal, view);
+		}
+		return view;
+	}
+
+	/**
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @return True if the argument was on the command line.
+	 */
+	public boolean isPresent(final String argName) {
+		final int ordinal = spec.getOrdinal(argName);
+		return (ordinal >= 0) && parsedValues.isPresent(ordinal);
+	}
+
+	/**
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @return The value of the argument, or null if it was not on the command line
+	 *         or has no value.
+	 */
+	public String getValue(final String argName) {
+		final int ordinal = spec.getOrdinal(argName);
+		return ordinal < 0 ? null : parsedValues.getValue(ordinal);
+	}
+
+	/**
+	 * Provides the converted value of an int {@link TypedArgument}, without boxing.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @param defaultValue
+	 *            The value to return if the argument is not on the command line.
+	 * @return The converted value, or the default value.
+	 */
+	public int getInt(final String argName, final int defaultValue) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.INT);
+		return parsedValues.isPresent(ordinal) ? (int) parsedValues.getLongValue(ordinal) : defaultValue;
+	}
+
+	/**
+	 * Provides the converted value of a long {@link TypedArgument}, without
+	 * boxing.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @param defaultValue
+	 *            The value to return if the argument is not on the command line.
+	 * @return The converted value, or the default value.
+	 */
+	public long getLong(final String argName, final long defaultValue) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.LONG);
+		return parsedValues.isPresent(ordinal) ? parsedValues.getLongValue(ordinal) : defaultValue;
+	}
+
+	/**
+	 * Provides the converted value of a double {@link TypedArgument}, without
+	 * boxing.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @param defaultValue
+	 *            The value to return if the argument is not on the command line.
+	 * @return The converted value, or the default value.
+	 */
+	public double getDouble(final String argName, final double defaultValue) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.DOUBLE);
+		return parsedValues.isPresent(ordinal) ? parsedValues.getDoubleValue(ordinal) : defaultValue;
+	}
+
+	/**
+	 * Provides the converted value of a boolean {@link TypedArgument}.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @param defaultValue
+	 *            The value to return if the argument is not on the command line.
+	 * @return The converted value, or the default value.
+	 */
+	public boolean getBoolean(final String argName, final boolean defaultValue) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.BOOLEAN);
+		return parsedValues.isPresent(ordinal) ? parsedValues.getLongValue(ordinal) != 0 : defaultValue;
+	}
+
+	/**
+	 * Provides the converted value of an enum {@link TypedArgument}.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @param enumType
+	 *            The enum class of the argument.
+	 * @return The enum constant, or null if the argument is not on the command
+	 *         line.
+	 */
+	public <E extends Enum<E>> E getEnum(final String argName, final Class<E> enumType) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.ENUM);
+		return parsedValues.isPresent(ordinal) ? enumType.cast(parsedValues.getTypedValue(ordinal)) : null;
+	}
+
+	/**
+	 * Provides the converted value of a Path {@link TypedArgument}.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @return The Path, or null if the argument is not on the command line.
+	 */
+	public Path getPath(final String argName) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.PATH);
+		return parsedValues.isPresent(ordinal) ? (Path) parsedValues.getTypedValue(ordinal) : null;
+	}
+
+	/**
+	 * Provides the converted value of a Duration {@link TypedArgument}.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @return The Duration, or null if the argument is not on the command line.
+	 */
+	public Duration getDuration(final String argName) {
+		final int ordinal = getTypedOrdinal(argName, ArgumentType.DURATION);
+		return parsedValues.isPresent(ordinal) ? (Duration) parsedValues.getTypedValue(ordinal) : null;
+	}
+
+	/**
+	 * Finds the ordinal of an argument from its name, checking its type.
+	 *
+	 * @param argName
+	 *            The name of the registered argument.
+	 * @param type
+	 *            The expected type of the argument.
+	 * @return The ordinal of the argument.
+	 * @throws IllegalArgumentException
+	 *             If the argument is not a {@link TypedArgument} of this type.
+	 */
+	private int getTypedOrdinal(final String argName, final ArgumentType type) {
+		final int ordinal = spec.getOrdinal(argName);
+		final Argument argument = ordinal < 0 ? null : spec.getArguments().get(ordinal);
+		if (!(argument instanceof TypedArgument) || (((TypedArgument) argument).getType() != type)) {
+			throw new IllegalArgumentException(
+					String.format("The argument %1$s is not a %2$s argument !", argName, type.name().toLowerCase()));
+		}
+		return ordinal;
+	}
+
+	/**
+	 * @return The parsed arguments, in command line order.
+	 */
+	public Collection<ParsedArgument> getParsedArguments() {
+		final List<ParsedArgument> parsedArguments = new ArrayList<>(parsedValues.getPresentCount());
+		for (int position = 0; position < parsedValues.getPresentCount(); position++) {
+			parsedArguments.add(getView(parsedValues.getOrdinalAt(position)));
+		}
+		return Collections.unmodifiableList(parsedArguments);
+	}
+
+	/**
+	 * @return The short-circuit argument that stopped the parse, like help or
+	 *         version, or null if the whole command line was resolved.
+	 */
+	public Argument getShortCircuitArgument() {
+		return shortCircuitArgument;
+	}
+
+	/**
+	 * @return True if a short-circuit argument stopped the parse before the
+	 *         checks.
+	 */
+	public boolean isShortCircuited() {
+		return null != shortCircuitArgument;
+	}
+
+	/**
+	 * @return The strings of the command line that were not consumed by the
+	 *         registered arguments.
+	 */
+	public List<String> getLeftovers() {
+		return leftovers;
+	}
+
+	/**
+	 * @return The positional values, in command line order, or an empty list if
+	 *         they were streamed to the consumer of the positional values.
+	 */
+	public List<String> getPositionals() {
+		return positionals;
+	}
+
+	/**
+	 * @return The number of positional values on the command line, streamed or
+	 *         not, including the ones beyond the max arity.
+	 */
+	public long getPositionalCount() {
+		return parsedValues.getPositionalCount();
+	}
+
+}
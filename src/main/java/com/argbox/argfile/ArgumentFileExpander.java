@@ -0,0 +1,117 @@
+package com.argbox.argfile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks through a command line, replacing each @file token by the tokens of the
+ * argument file it designates. The argument files are tokenized lazily, one
+ * token at a time, by {@link ArgumentFileTokenizer}. Argument files can include
+ * other argument files, whose relative paths are resolved against the directory
+ * of the including file. An argument file including itself, directly or not, is
+ * rejected with a {@link FileSystemLoopException}.
+ * <p>
+ * As an {@link Iterator} cannot throw checked exceptions, reading errors are
+ * thrown as {@link UncheckedIOException}.
+ */
+public class ArgumentFileExpander implements Iterator<String>, Closeable {
+
+	private static final char ARGUMENT_FILE_PREFIX = '@';
+
+	private final Iterator<String> commandLine;
+
+	/**
+	 * The argument files being read, the innermost one first.
+	 */
+	private final Deque<ArgumentFileTokenizer> openFiles = new ArrayDeque<>();
+
+	private String next;
+
+	/**
+	 * @param commandLine
+	 *            The tokens of the command line, possibly holding @file tokens.
+	 */
+	public ArgumentFileExpander(final Iterator<String> commandLine) {
+		this.commandLine = commandLine;
+	}
+
+	/**
+	 * @param token
+	 *            A token of the command line.
+	 * @return True if the token designates an argument file.
+	 */
+	public static boolean isArgumentFile(final String token) {
+		return (null != token) && (token.length() > 1) && (ARGUMENT_FILE_PREFIX == token.charAt(0));
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			while (null == next) {
+				final Iterator<String> source = openFiles.isEmpty() ? commandLine : openFiles.peek();
+				if (source.hasNext()) {
+					final String token = source.next();
+					if (isArgumentFile(token)) {
+						open(token.substring(1));
+					} else {
+						next = token;
+					}
+				} else if (openFiles.isEmpty()) {
+					return false;
+				} else {
+					openFiles.pop().close();
+				}
+			}
+			return true;
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final String token = next;
+		next = null;
+		return token;
+	}
+
+	/**
+	 * Closes every argument file still open, when the command line is not read to
+	 * its end.
+	 */
+	@Override
+	public void close() throws IOException {
+		while (!openFiles.isEmpty()) {
+			openFiles.pop().close();
+		}
+	}
+
+	private void open(final String fileName) throws IOException {
+		Path file = Paths.get(fileName);
+		if (!file.isAbsolute() && !openFiles.isEmpty()) {
+			final Path includingDirectory = openFiles.peek().getFile().getParent();
+			if (null != includingDirectory) {
+				file = includingDirectory.resolve(file);
+			}
+		}
+		final Path realFile = file.toRealPath();
+		for (final ArgumentFileTokenizer openFile : openFiles) {
+			if (openFile.getFile().equals(realFile)) {
+				throw new FileSystemLoopException(realFile.toString());
+			}
+		}
+		openFiles.push(new ArgumentFileTokenizer(realFile));
+	}
+
+}
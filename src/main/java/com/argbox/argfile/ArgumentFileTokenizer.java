@@ -0,0 +1,181 @@
+package com.argbox.argfile;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the tokens of an argument file one at a time, so the whole file never
+ * needs to be held in memory. The file is read as UTF-8 through a buffered NIO
+ * channel.
+ * <p>
+ * Tokens are separated by whitespace. Single quotes keep their content as is,
+ * double quotes keep their content but allow \" and \\ escapes, and outside of
+ * quotes a backslash escapes the next character. A # starting a token begins a
+ * comment running to the end of the line.
+ * <p>
+ * As an {@link Iterator} cannot throw checked exceptions, reading errors are
+ * thrown as {@link UncheckedIOException}.
+ */
+public class ArgumentFileTokenizer implements Iterator<String>, Closeable {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int END = -1;
+
+	private final Path file;
+
+	private final Reader reader;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position;
+
+	private int limit;
+
+	private final StringBuilder token = new StringBuilder();
+
+	private String next;
+
+	private boolean closed;
+
+	/**
+	 * Opens an argument file.
+	 *
+	 * @param file
+	 *            The argument file.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	public ArgumentFileTokenizer(final Path file) throws IOException {
+		this.file = file;
+		reader = Channels.newReader(FileChannel.open(file, StandardOpenOption.READ),
+				StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE);
+	}
+
+	/**
+	 * @return The argument file.
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if ((null == next) && !closed) {
+			try {
+				next = readToken();
+				if (null == next) {
+					close();
+				}
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return null != next;
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final String token = next;
+		next = null;
+		return token;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads the next token of the file.
+	 *
+	 * @return The token, or null at the end of the file.
+	 * @throws IOException
+	 *             If the file cannot be read or ends inside quotes.
+	 */
+	private String readToken() throws IOException {
+		int c = skipWhitespaceAndComments();
+		if (END == c) {
+			return null;
+		}
+		token.setLength(0);
+		while ((END != c) && !Character.isWhitespace(c)) {
+			if ('\'' == c) {
+				readQuoted('\'');
+			} else if ('"' == c) {
+				readQuoted('"');
+			} else if ('\\' == c) {
+				c = read();
+				if (END != c) {
+					token.append((char) c);
+				}
+			} else {
+				token.append((char) c);
+			}
+			c = read();
+		}
+		return token.toString();
+	}
+
+	private int skipWhitespaceAndComments() throws IOException {
+		int c = read();
+		while (true) {
+			while ((END != c) && Character.isWhitespace(c)) {
+				c = read();
+			}
+			if ('#' != c) {
+				return c;
+			}
+			while ((END != c) && ('\n' != c)) {
+				c = read();
+			}
+		}
+	}
+
+	private void readQuoted(final char quote) throws IOException {
+		int c = read();
+		while (quote != c) {
+			if (END == c) {
+				throw new EOFException("Unterminated quote in the argument file " + file);
+			}
+			if (('"' == quote) && ('\\' == c)) {
+				c = read();
+				if (('"' != c) && ('\\' != c)) {
+					token.append('\\');
+					continue;
+				}
+			}
+			token.append((char) c);
+			c = read();
+		}
+	}
+
+	private int read() throws IOException {
+		if (position == limit) {
+			limit = reader.read(buffer, 0, buffer.length);
+			position = 0;
+			if (limit <= 0) {
+				limit = 0;
+				return END;
+			}
+		}
+		return buffer[position++];
+	}
+
+}
@@ -0,0 +1,318 @@
+package com.argbox.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.argbox.ArgSpec;
+import com.argbox.ParseContext;
+import com.argbox.ParseError;
+import com.argbox.ParseResult;
+import com.argbox.ParsedCommandLine;
+import com.argbox.model.Argument;
+import com.argbox.model.ParsedArgument;
+
+/**
+ * Parses a file of recorded command lines, one per line, against a single
+ * shared {@link ArgSpec}. Each line is split like
+ * {@link ArgSpec#tryParseCommandString(boolean, CharSequence)} does, with the
+ * shell-style quotes and escapes, so a batch line and the same command line
+ * parsed on its own agree.
+ * <p>
+ * The file is split into chunks on line boundaries, each chunk is memory-mapped
+ * and parsed by a fork/join task, and the partial {@link BatchReport}s are
+ * merged at the end. No exception is thrown for an invalid command line : the
+ * failures are counted in the report. The consumer of the positional values of
+ * the spec, if any, is called from the worker threads of the pool, concurrently,
+ * so it must be thread-safe.
+ */
+public class BatchParser {
+
+	/**
+	 * Chunks are never smaller than this, so small files are not split uselessly.
+	 */
+	private static final long MIN_CHUNK_SIZE = 1L << 20;
+
+	/**
+	 * Chunks are never larger than this, so each one can be mapped at once.
+	 */
+	private static final long MAX_CHUNK_SIZE = 1L << 30;
+
+	/**
+	 * Number of chunks per worker thread, so the work is balanced between them.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Size of the buffer used to look for a line end around a chunk boundary.
+	 */
+	private static final int BOUNDARY_SCAN_SIZE = 8192;
+
+	private final ArgSpec spec;
+
+	private final boolean forbidLeftovers;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Builds a batch parser forbidding leftovers and running on the common
+	 * fork/join pool.
+	 *
+	 * @param spec
+	 *            The spec to parse the command lines against.
+	 */
+	public BatchParser(final ArgSpec spec) {
+		this(spec, true, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param spec
+	 *            The spec to parse the command lines against.
+	 * @param forbidLeftovers
+	 *            Indicates if a command line with leftovers is a failed one.
+	 * @param pool
+	 *            The pool running the parsing tasks.
+	 */
+	public BatchParser(final ArgSpec spec, final boolean forbidLeftovers, final ForkJoinPool pool) {
+		this.spec = spec;
+		this.forbidLeftovers = forbidLeftovers;
+		this.pool = pool;
+	}
+
+	/**
+	 * Parses every line of a UTF-8 file.
+	 *
+	 * @param file
+	 *            The file holding one command line per line.
+	 * @return The aggregated results.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	public BatchReport parse(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long[] boundaries = computeBoundaries(channel);
+			try {
+				return pool.invoke(new ChunkTask(channel, boundaries, 0, boundaries.length - 1));
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Splits the file into chunks ending on line boundaries.
+	 *
+	 * @param channel
+	 *            The file.
+	 * @return The chunk start positions, followed by the file size.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	private long[] computeBoundaries(final FileChannel channel) throws IOException {
+		final long size = channel.size();
+		final long chunkSize = Math.min(MAX_CHUNK_SIZE,
+				Math.max(MIN_CHUNK_SIZE, size / ((long) pool.getParallelism() * CHUNKS_PER_THREAD)));
+		final List<Long> boundaries = new ArrayList<>();
+		long start = 0;
+		boundaries.add(start);
+		while ((start + chunkSize) < size) {
+			start = findNextLine(channel, start + chunkSize, size);
+			boundaries.add(start);
+		}
+		if (start < size) {
+			boundaries.add(size);
+		}
+		return boundaries.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * Finds the start of the line following the given position.
+	 *
+	 * @param channel
+	 *            The file.
+	 * @param position
+	 *            The position to start looking from.
+	 * @param size
+	 *            The file size.
+	 * @return The position after the next line feed, or the file size.
+	 * @throws IOException
+	 *             If the file cannot be read.
+	 */
+	private long findNextLine(final FileChannel channel, final long position, final long size) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+		long offset = position;
+		while (offset < size) {
+			buffer.clear();
+			final int read = channel.read(buffer, offset);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return offset + i + 1;
+				}
+			}
+			offset += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Parses a single chunk of the file.
+	 *
+	 * @param channel
+	 *            The file.
+	 * @param start
+	 *            The position of the first line of the chunk.
+	 * @param end
+	 *            The position after the last line of the chunk.
+	 * @return The results of the chunk.
+	 * @throws IOException
+	 *             If the chunk cannot be mapped.
+	 */
+	private BatchReport parseChunk(final FileChannel channel, final long start, final long end) throws IOException {
+		final BatchReport report = new BatchReport(spec.getArguments());
+		final ParseContext context = new ParseContext();
+		final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		byte[] line = new byte[256];
+		int length = 0;
+		while (buffer.hasRemaining()) {
+			final byte b = buffer.get();
+			if (b == '\n') {
+				parseLine(context, line, length, report);
+				length = 0;
+			} else {
+				if (length == line.length) {
+					line = Arrays.copyOf(line, length * 2);
+				}
+				line[length++] = b;
+			}
+		}
+		parseLine(context, line, length, report);
+		return report;
+	}
+
+	/**
+	 * Decodes a line and parses it, skipping the blank lines.
+	 *
+	 * @param context
+	 *            The context of the chunk.
+	 * @param line
+	 *            The bytes of the line.
+	 * @param length
+	 *            The number of bytes of the line.
+	 * @param report
+	 *            The report to count the results into.
+	 */
+	private void parseLine(final ParseContext context, final byte[] line, final int length,
+			final BatchReport report) {
+		for (int index = 0; index < length; index++) {
+			if (!isSeparator(line[index])) {
+				count(context, new String(line, 0, length, StandardCharsets.UTF_8), report);
+				return;
+			}
+		}
+	}
+
+	private static boolean isSeparator(final byte b) {
+		return (b == ' ') || (b == '\t') || (b == '\r');
+	}
+
+	/**
+	 * Parses a command line with
+	 * {@link ArgSpec#tryParseCommandString(ParseContext, boolean, CharSequence)}
+	 * and counts its results, so it gets the same checks as a single parse. The
+	 * arguments and the leftovers are counted from what the context resolved, so
+	 * a failed parse is not resolved a second time.
+	 *
+	 * @param context
+	 *            The context of the chunk.
+	 * @param line
+	 *            The command line.
+	 * @param report
+	 *            The report to count the results into.
+	 */
+	private void count(final ParseContext context, final String line, final BatchReport report) {
+		final ParseResult result = spec.tryParseCommandString(context, forbidLeftovers, line);
+		final ParsedCommandLine commandLine = context.getResolvedCommandLine();
+		for (final ParsedArgument parsedArg : commandLine.getParsedArguments()) {
+			report.countUsage(parsedArg, parsedArg.getOrdinal());
+		}
+		for (final String leftover : commandLine.getLeftovers()) {
+			report.countLeftover(leftover);
+		}
+		for (final ParseError error : result.getErrors()) {
+			if (isValueError(error)) {
+				final Argument argument = error.getArgument();
+				report.countValidationFailure(argument, commandLine.getSpec().getOrdinal(argument.getArgName()));
+			}
+		}
+		report.countLine(!result.isSuccess());
+	}
+
+	private static boolean isValueError(final ParseError error) {
+		switch (error.getKind()) {
+		case MISSING_VALUE:
+		case INVALID_VALUE:
+		case VALIDATION_TIMEOUT:
+			return null != error.getArgument();
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Parses a range of chunks, splitting it in two until a single chunk is left.
+	 */
+	private class ChunkTask extends RecursiveTask<BatchReport> {
+
+		private static final long serialVersionUID = 4187006418356742351L;
+
+		private final transient FileChannel channel;
+
+		private final long[] boundaries;
+
+		private final int from;
+
+		private final int to;
+
+		ChunkTask(final FileChannel channel, final long[] boundaries, final int from, final int to) {
+			this.channel = channel;
+			this.boundaries = boundaries;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BatchReport compute() {
+			if ((to - from) <= 1) {
+				if (from == to) {
+					return new BatchReport(spec.getArguments());
+				}
+				try {
+					return parseChunk(channel, boundaries[from], boundaries[to]);
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+			final int middle = (from + to) >>> 1;
+			final ChunkTask left = new ChunkTask(channel, boundaries, from, middle);
+			final ChunkTask right = new ChunkTask(channel, boundaries, middle, to);
+			left.fork();
+			final BatchReport rightReport = right.compute();
+			return left.join().merge(rightReport);
+		}
+
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.argbox.batch;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.argbox.model.Argument;
+
+/**
+ * Aggregated results of a {@link BatchParser} run : how many command lines were
+ * parsed and failed, how often each argument was used or had an invalid value,
+ * and how often each left over string appeared.
+ */
+public class BatchReport {
+
+	private final List<Argument> arguments;
+
+	private long lineCount;
+
+	private long failedLineCount;
+
+	/**
+	 * Number of lines using each argument, indexed like {@link #arguments}.
+	 */
+	private final long[] usageCounts;
+
+	/**
+	 * Number of missing or invalid values of each argument, indexed like
+	 * {@link #arguments}.
+	 */
+	private final long[] validationFailureCounts;
+
+	/**
+	 * Number of lines using each argument of a subcommand, not inherited from
+	 * the spec of the report, by argument name.
+	 */
+	private final Map<String, Long> subcommandUsageCounts = new LinkedHashMap<>();
+
+	/**
+	 * Number of missing or invalid values of each argument of a subcommand, by
+	 * argument name.
+	 */
+	private final Map<String, Long> subcommandValidationFailureCounts = new LinkedHashMap<>();
+
+	private final Map<String, Long> leftoverCounts = new HashMap<>();
+
+	BatchReport(final List<Argument> arguments) {
+		this.arguments = arguments;
+		usageCounts = new long[arguments.size()];
+		validationFailureCounts = new long[arguments.size()];
+	}
+
+	void countLine(final boolean failed) {
+		lineCount++;
+		if (failed) {
+			failedLineCount++;
+		}
+	}
+
+	/**
+	 * @param argument
+	 *            The argument used.
+	 * @param ordinal
+	 *            The ordinal of the argument in the spec of its command line. The
+	 *            inherited arguments of a subcommand keep the ordinals of the
+	 *            spec of the report, the other ones come after.
+	 */
+	void countUsage(final Argument argument, final int ordinal) {
+		count(usageCounts, subcommandUsageCounts, argument, ordinal);
+	}
+
+	/**
+	 * @param argument
+	 *            The argument with a missing or invalid value.
+	 * @param ordinal
+	 *            The ordinal of the argument, see
+	 *            {@link #countUsage(Argument, int)}.
+	 */
+	void countValidationFailure(final Argument argument, final int ordinal) {
+		count(validationFailureCounts, subcommandValidationFailureCounts, argument, ordinal);
+	}
+
+	private void count(final long[] counts, final Map<String, Long> subcommandCounts, final Argument argument,
+			final int ordinal) {
+		if (ordinal < counts.length) {
+			counts[ordinal]++;
+		} else {
+			subcommandCounts.merge(argument.getArgName(), 1L, Long::sum);
+		}
+	}
+
+	void countLeftover(final String leftover) {
+		leftoverCounts.merge(leftover, 1L, Long::sum);
+	}
+
+	/**
+	 * Adds the counts of another report of the same spec to this one.
+	 *
+	 * @param other
+	 *            The report to add.
+	 * @return This report.
+	 */
+	BatchReport merge(final BatchReport other) {
+		lineCount += other.lineCount;
+		failedLineCount += other.failedLineCount;
+		for (int i = 0; i < usageCounts.length; i++) {
+			usageCounts[i] += other.usageCounts[i];
+			validationFailureCounts[i] += other.validationFailureCounts[i];
+		}
+		other.subcommandUsageCounts
+				.forEach((argName, count) -> subcommandUsageCounts.merge(argName, count, Long::sum));
+		other.subcommandValidationFailureCounts
+				.forEach((argName, count) -> subcommandValidationFailureCounts.merge(argName, count, Long::sum));
+		other.leftoverCounts.forEach((leftover, count) -> leftoverCounts.merge(leftover, count, Long::sum));
+		return this;
+	}
+
+	/**
+	 * @return The number of command lines parsed, blank lines excluded.
+	 */
+	public long getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * @return The number of command lines rejected by the parse, like the ones
+	 *         with a missing mandatory argument, an invalid value, a forbidden
+	 *         leftover or a validator throwing an exception.
+	 */
+	public long getFailedLineCount() {
+		return failedLineCount;
+	}
+
+	/**
+	 * @return The number of command lines using each argument, by argument name
+	 *         and in registration order, followed by the arguments of the
+	 *         subcommands used.
+	 */
+	public Map<String, Long> getUsageCounts() {
+		return toMap(usageCounts, subcommandUsageCounts);
+	}
+
+	/**
+	 * @return The number of missing or invalid values of each argument, by
+	 *         argument name and in registration order, followed by the arguments
+	 *         of the subcommands with such values.
+	 */
+	public Map<String, Long> getValidationFailureCounts() {
+		return toMap(validationFailureCounts, subcommandValidationFailureCounts);
+	}
+
+	/**
+	 * @return The number of occurrences of each left over string.
+	 */
+	public Map<String, Long> getLeftoverCounts() {
+		return Collections.unmodifiableMap(leftoverCounts);
+	}
+
+	private Map<String, Long> toMap(final long[] counts, final Map<String, Long> subcommandCounts) {
+		final Map<String, Long> countsByName = new LinkedHashMap<>();
+		for (int i = 0; i < counts.length; i++) {
+			countsByName.put(arguments.get(i).getArgName(), counts[i]);
+		}
+		countsByName.putAll(subcommandCounts);
+		return Collections.unmodifiableMap(countsByName);
+	}
+
+}
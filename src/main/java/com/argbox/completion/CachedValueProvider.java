@@ -0,0 +1,89 @@
+package com.argbox.completion;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A value provider keeping the values of a slow provider, like a remote lookup,
+ * in a file. Each completion is run by a new process, so an in-memory cache
+ * would never be hit : the values are written once, one per line in UTF-8, and
+ * read back by the next completions until they expire.
+ * <p>
+ * The file is replaced atomically, so concurrent completions read either the
+ * old or the new values. A cache that cannot be written is not an error : the
+ * values are then computed on each completion.
+ */
+public class CachedValueProvider implements ValueProvider {
+
+	private final Path cacheFile;
+
+	private final long timeToLiveMillis;
+
+	private final ValueProvider provider;
+
+	/**
+	 * @param cacheFile
+	 *            The file holding the values, its directories are created if
+	 *            needed.
+	 * @param timeToLive
+	 *            How long the values are kept, from the time they were written.
+	 * @param provider
+	 *            The slow provider, called with an empty prefix so the file holds
+	 *            all the values.
+	 */
+	public CachedValueProvider(final Path cacheFile, final Duration timeToLive, final ValueProvider provider) {
+		this.cacheFile = cacheFile;
+		timeToLiveMillis = timeToLive.toMillis();
+		this.provider = provider;
+	}
+
+	@Override
+	public List<String> getValues(final String prefix) throws IOException {
+		List<String> values = readFresh();
+		if (null == values) {
+			values = provider.getValues("");
+			write(values);
+		}
+		return ValueProviders.filter(values, prefix);
+	}
+
+	/**
+	 * @return The cached values, or null if there are none or they are expired.
+	 */
+	private List<String> readFresh() {
+		try {
+			if (Files.getLastModifiedTime(cacheFile).toMillis() + timeToLiveMillis <= System.currentTimeMillis()) {
+				return null;
+			}
+			return Files.readAllLines(cacheFile, StandardCharsets.UTF_8);
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the values to a temporary file, then moves it over the cache file.
+	 */
+	private void write(final List<String> values) {
+		try {
+			final Path directory = cacheFile.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			final Path temporaryFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+			try {
+				Files.write(temporaryFile, values, StandardCharsets.UTF_8);
+				Files.move(temporaryFile, cacheFile, StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(temporaryFile);
+			}
+		} catch (final IOException e) {
+			// Not cached, the values are computed again by the next completion.
+		}
+	}
+
+}
@@ -0,0 +1,239 @@
+package com.argbox.completion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.argbox.ArgSpec;
+import com.argbox.model.Argument;
+import com.argbox.model.Positional;
+import com.argbox.model.Subcommand;
+import com.argbox.model.TypedArgument;
+
+/**
+ * Answers the completion queries of the scripts built by
+ * {@link CompletionScripts} : given the words of a partial command line, the
+ * last one being the word under completion, it lists the calls, subcommands or
+ * values that can be typed there.
+ * <p>
+ * Each query is run by a new process, so the program should check
+ * {@link #isQuery(String...)} first thing in its main method and answer it
+ * before any other initialization. The query only compiles the subcommands
+ * met on the partial command line, runs no validator and feeds no consumer of
+ * positional values. Slow value providers should be wrapped in a
+ * {@link CachedValueProvider}.
+ */
+public class CompletionEngine {
+
+	/**
+	 * The first argument of a completion query, followed by the words of the
+	 * partial command line.
+	 */
+	public static final String QUERY_COMMAND = "__complete";
+
+	private final ArgSpec spec;
+
+	private final Map<String, ValueProvider> valueProviders = new HashMap<>();
+
+	/**
+	 * @param spec
+	 *            The compiled arguments of the program.
+	 */
+	public CompletionEngine(final ArgSpec spec) {
+		this.spec = spec;
+	}
+
+	/**
+	 * Sets the provider of the values of an argument, or of the positional
+	 * values. Without one, the values of the enum, path and boolean
+	 * {@link TypedArgument}s are provided by the matching
+	 * {@link ValueProviders}, and the other values are not completed.
+	 *
+	 * @param name
+	 *            The name of the argument or of the positional values.
+	 * @param provider
+	 *            The provider of the values.
+	 */
+	public void setValueProvider(final String name, final ValueProvider provider) {
+		valueProviders.put(name, provider);
+	}
+
+	/**
+	 * @param args
+	 *            The arguments of the program.
+	 * @return True if the program is called by a completion script.
+	 */
+	public static boolean isQuery(final String... args) {
+		return (null != args) && (args.length > 0) && QUERY_COMMAND.equals(args[0]);
+	}
+
+	/**
+	 * Answers a completion query, one candidate per line.
+	 *
+	 * @param args
+	 *            The arguments of the program, starting with
+	 *            {@link #QUERY_COMMAND}.
+	 * @param out
+	 *            Where to write the candidates.
+	 * @throws IOException
+	 *             If a value provider or the output fails.
+	 */
+	public void answerQuery(final String[] args, final Appendable out) throws IOException {
+		for (final String candidate : complete(Arrays.copyOfRange(args, 1, args.length))) {
+			out.append(candidate).append('\n');
+		}
+	}
+
+	/**
+	 * Lists what can be typed at the end of a partial command line. After a call
+	 * expecting a value, the values of its argument are listed. Otherwise the
+	 * word is matched against the short and long calls, leaving out the
+	 * arguments already present, and, unless it starts with '-', against the
+	 * subcommands and the positional values.
+	 * <p>
+	 * If the compact syntax is enabled, the previous words are read the way a
+	 * parse does : the clustered short calls and the attached values are
+	 * understood, a word under completion like --name= gets the values of its
+	 * argument, and after the "--" end of options only the positional values are
+	 * listed.
+	 *
+	 * @param words
+	 *            The words of the command line, without the program name, the
+	 *            last one being the word under completion, possibly empty.
+	 * @return The candidates starting with the word under completion.
+	 * @throws IOException
+	 *             If a value provider fails.
+	 */
+	public List<String> complete(final String... words) throws IOException {
+		ArgSpec selectedSpec = spec;
+		final Set<String> presentNames = new HashSet<>();
+		final List<Argument> compactArguments = new ArrayList<>();
+		long positionalCount = 0;
+		Argument awaitingValue = null;
+		boolean endOfOptions = false;
+		final int last = words.length - 1;
+		for (int i = 0; i < last; i++) {
+			final String word = words[i];
+			if (null != awaitingValue) {
+				awaitingValue = null;
+				continue;
+			}
+			if (endOfOptions) {
+				positionalCount++;
+				continue;
+			}
+			final Argument argument = selectedSpec.findArgument(word);
+			if (null != argument) {
+				presentNames.add(argument.getArgName());
+				awaitingValue = argument.isValueRequired() ? argument : null;
+				continue;
+			}
+			final ArgSpec subcommandSpec;
+			try {
+				subcommandSpec = 0 == positionalCount ? selectedSpec.getSubcommand(word) : null;
+			} catch (final IllegalStateException e) {
+				// A subcommand that cannot be compiled has nothing to complete.
+				return new ArrayList<>();
+			}
+			if (null != subcommandSpec) {
+				selectedSpec = subcommandSpec;
+				continue;
+			}
+			if (selectedSpec.isCompactSyntaxEnabled() && "--".equals(word)) {
+				endOfOptions = true;
+				continue;
+			}
+			compactArguments.clear();
+			final boolean valuePending = selectedSpec.findCompactArguments(word, compactArguments);
+			if (!compactArguments.isEmpty()) {
+				compactArguments.forEach(compactArgument -> presentNames.add(compactArgument.getArgName()));
+				awaitingValue = valuePending ? compactArguments.get(compactArguments.size() - 1) : null;
+			} else if (word.isEmpty() || ('-' != word.charAt(0)) || (1 == word.length())) {
+				positionalCount++;
+			}
+		}
+		final String prefix = last < 0 ? "" : words[last];
+		if (null != awaitingValue) {
+			return getValues(getValueProvider(awaitingValue), prefix);
+		}
+		final Positional positional = selectedSpec.getPositional();
+		if (endOfOptions) {
+			return (null != positional) && (positionalCount < positional.getMaxArity())
+					? getValues(valueProviders.get(positional.getName()), prefix)
+					: new ArrayList<>();
+		}
+		final List<String> candidates = new ArrayList<>();
+		if (prefix.isEmpty() || ('-' != prefix.charAt(0))) {
+			if (0 == positionalCount) {
+				for (final Subcommand subcommand : selectedSpec.getSubcommands()) {
+					if (subcommand.getName().startsWith(prefix)) {
+						candidates.add(subcommand.getName());
+					}
+				}
+			}
+			if ((null != positional) && (positionalCount < positional.getMaxArity())) {
+				candidates.addAll(getValues(valueProviders.get(positional.getName()), prefix));
+			}
+		} else if (selectedSpec.isCompactSyntaxEnabled() && prefix.startsWith("--") && (prefix.indexOf('=') > 0)) {
+			return getAttachedValues(selectedSpec, prefix);
+		}
+		for (final String call : selectedSpec.getCallsStartingWith(prefix)) {
+			if (!presentNames.contains(selectedSpec.findArgument(call).getArgName())) {
+				candidates.add(call);
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Lists the values that can follow the '=' of a --long=value word, each one
+	 * with the call in front of it, since it is a single word.
+	 */
+	private List<String> getAttachedValues(final ArgSpec selectedSpec, final String word) throws IOException {
+		final int equals = word.indexOf('=');
+		final Argument argument = selectedSpec.findArgument(word.substring(0, equals));
+		final List<String> candidates = new ArrayList<>();
+		if ((null != argument) && argument.isValueRequired()) {
+			final String call = word.substring(0, equals + 1);
+			for (final String value : getValues(getValueProvider(argument), word.substring(equals + 1))) {
+				candidates.add(call + value);
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * @return The provider set for the argument, or the built-in one matching its
+	 *         type, or null.
+	 */
+	private ValueProvider getValueProvider(final Argument argument) {
+		final ValueProvider provider = valueProviders.get(argument.getArgName());
+		if ((null != provider) || !(argument instanceof TypedArgument)) {
+			return provider;
+		}
+		final TypedArgument typedArgument = (TypedArgument) argument;
+		switch (typedArgument.getType()) {
+		case ENUM:
+			return ValueProviders.enumConstants(typedArgument.getEnumType());
+		case PATH:
+			return ValueProviders.files();
+		case BOOLEAN:
+			return ValueProviders.of("true", "false");
+		default:
+			return null;
+		}
+	}
+
+	private static List<String> getValues(final ValueProvider provider, final String prefix) throws IOException {
+		if (null == provider) {
+			return new ArrayList<>();
+		}
+		return ValueProviders.filter(provider.getValues(prefix), prefix);
+	}
+
+}
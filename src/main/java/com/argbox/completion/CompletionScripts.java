@@ -0,0 +1,235 @@
+package com.argbox.completion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.argbox.ArgSpec;
+import com.argbox.model.Argument;
+
+/**
+ * Builds the bash, zsh and fish completion scripts of a program from its
+ * compiled arguments. Starting a JVM for each key stroke is slow, so the calls
+ * of a program without subcommands are written in the script itself : they are
+ * completed by the shell alone, leaving out the arguments already typed. The
+ * values, the positional values and the subcommands are completed by calling
+ * the program with {@link CompletionEngine#QUERY_COMMAND}.
+ */
+public final class CompletionScripts {
+
+	private CompletionScripts() {
+	}
+
+	/**
+	 * @param programName
+	 *            The command running the program.
+	 * @param spec
+	 *            The compiled arguments of the program.
+	 * @return The bash script, to be sourced.
+	 */
+	public static String bash(final String programName, final ArgSpec spec) {
+		final String function = getFunctionName(programName);
+		final StringBuilder script = new StringBuilder();
+		script.append("# bash completion for ").append(programName).append('\n');
+		script.append(function).append("() {\n");
+		// bash splits --long=value around the '=' (COMP_WORDBREAKS) : the words are joined back.
+		script.append("\tlocal words=() word i\n");
+		script.append("\tfor (( i = 1; i <= COMP_CWORD; i++ )); do\n");
+		script.append("\t\tword=\"${COMP_WORDS[i]}\"\n");
+		script.append("\t\tif (( ${#words[@]} )) && [[ \"$word\" == \"=\" || \"${words[${#words[@]}-1]}\" == *= ]]; then\n");
+		script.append("\t\t\twords[${#words[@]}-1]+=\"$word\"\n");
+		script.append("\t\telse\n");
+		script.append("\t\t\twords+=(\"$word\")\n");
+		script.append("\t\tfi\n");
+		script.append("\tdone\n");
+		script.append("\tlocal cur=\"${words[${#words[@]}-1]}\" prev=\"\"\n");
+		script.append("\t(( ${#words[@]} > 1 )) && prev=\"${words[${#words[@]}-2]}\"\n");
+		if (spec.getSubcommands().isEmpty()) {
+			script.append("\tif [[ \"$cur\" == -?* && \"$cur\" != *=* && ")
+					.append(quote(" " + join(getValueCalls(spec)) + " ")).append(" != *\" $prev \"* ]]; then\n");
+			script.append("\t\tlocal typed=\" ${words[*]:0:${#words[@]}-1} \" calls=() group call\n");
+			script.append("\t\tfor group in ").append(quoteAll(getCallGroups(spec))).append("; do\n");
+			script.append("\t\t\tfor call in $group; do\n");
+			script.append("\t\t\t\t[[ \"$typed\" == *\" $call \"* ]] && continue 2\n");
+			script.append("\t\t\tdone\n");
+			script.append("\t\t\tcalls+=($group)\n");
+			script.append("\t\tdone\n");
+			script.append("\t\tCOMPREPLY=($(compgen -W \"${calls[*]}\" -- \"$cur\"))\n");
+			script.append("\t\treturn\n");
+			script.append("\tfi\n");
+		}
+		script.append("\tlocal IFS=$'\\n'\n");
+		script.append("\tCOMPREPLY=($(").append(quote(programName)).append(' ').append(CompletionEngine.QUERY_COMMAND)
+				.append(" \"${words[@]}\" 2>/dev/null))\n");
+		// bash only replaces the part of the word after the last '='.
+		script.append("\tlocal head=\"${cur%\"${COMP_WORDS[COMP_CWORD]}\"}\"\n");
+		script.append("\tCOMPREPLY=(\"${COMPREPLY[@]#\"$head\"}\")\n");
+		script.append("\t[[ ${#COMPREPLY[@]} -eq 1 && \"${COMPREPLY[0]}\" == */ ]] && compopt -o nospace\n");
+		script.append("}\n");
+		script.append("complete -o default -F ").append(function).append(' ').append(quote(programName)).append('\n');
+		return script.toString();
+	}
+
+	/**
+	 * @param programName
+	 *            The command running the program.
+	 * @param spec
+	 *            The compiled arguments of the program.
+	 * @return The zsh script, to be sourced after compinit.
+	 */
+	public static String zsh(final String programName, final ArgSpec spec) {
+		final String function = getFunctionName(programName);
+		final StringBuilder script = new StringBuilder();
+		script.append("# zsh completion for ").append(programName).append('\n');
+		script.append(function).append("() {\n");
+		script.append("\tlocal cur=${words[CURRENT]} prev=${words[CURRENT-1]}\n");
+		if (spec.getSubcommands().isEmpty()) {
+			script.append("\tlocal -a value_calls typed calls\n");
+			script.append("\tvalue_calls=(").append(quoteAll(getValueCalls(spec))).append(")\n");
+			script.append("\tif [[ $cur == -?* ]] && (( ! ${value_calls[(Ie)$prev]} )); then\n");
+			script.append("\t\ttyped=(\"${(@)words[2,CURRENT-1]}\")\n");
+			script.append("\t\tlocal group call skip\n");
+			script.append("\t\tfor group in ").append(quoteAll(getCallGroups(spec))).append("; do\n");
+			script.append("\t\t\tskip=0\n");
+			script.append("\t\t\tfor call in ${=group}; do\n");
+			script.append("\t\t\t\t(( ${typed[(Ie)$call]} )) && skip=1\n");
+			script.append("\t\t\tdone\n");
+			script.append("\t\t\t(( skip )) || calls+=(${=group})\n");
+			script.append("\t\tdone\n");
+			script.append("\t\tcompadd -- $calls\n");
+			script.append("\t\treturn\n");
+			script.append("\tfi\n");
+		}
+		script.append("\tlocal -a candidates\n");
+		script.append("\tcandidates=(${(f)\"$(").append(quote(programName)).append(' ')
+				.append(CompletionEngine.QUERY_COMMAND).append(" \"${(@)words[2,CURRENT]}\" 2>/dev/null)\"})\n");
+		script.append("\tcompadd -- $candidates\n");
+		script.append("}\n");
+		script.append("compdef ").append(function).append(' ').append(quote(programName)).append('\n');
+		return script.toString();
+	}
+
+	/**
+	 * @param programName
+	 *            The command running the program.
+	 * @param spec
+	 *            The compiled arguments of the program.
+	 * @return The fish script, to be sourced or put in the completions
+	 *         directory.
+	 */
+	public static String fish(final String programName, final ArgSpec spec) {
+		final String function = getFunctionName(programName);
+		final String command = quoteFish(programName);
+		final StringBuilder script = new StringBuilder();
+		script.append("# fish completion for ").append(programName).append('\n');
+		script.append("function ").append(function).append('\n');
+		script.append("\t").append(command).append(' ').append(CompletionEngine.QUERY_COMMAND)
+				.append(" (commandline -opc)[2..-1] (commandline -ct) 2>/dev/null\n");
+		script.append("end\n");
+		if (spec.getSubcommands().isEmpty()) {
+			for (final Argument argument : spec.getArguments()) {
+				final String options = getFishOptions(argument);
+				if (options.isEmpty()) {
+					continue;
+				}
+				script.append("complete -c ").append(command).append(" -n ")
+						.append(quoteFish("not __fish_seen_argument" + options)).append(options).append(" -d ")
+						.append(quoteFish(argument.getHelpLine())).append('\n');
+			}
+			script.append("complete -c ").append(command).append(" -f -n ")
+					.append(quoteFish("not string match -q -- '-?*' (commandline -ct)")).append(" -a ")
+					.append(quoteFish("(" + function + ")")).append('\n');
+		} else {
+			script.append("complete -c ").append(command).append(" -f -a ").append(quoteFish("(" + function + ")"))
+					.append('\n');
+		}
+		return script.toString();
+	}
+
+	/**
+	 * @return The calls of each argument, separated by a space.
+	 */
+	private static List<String> getCallGroups(final ArgSpec spec) {
+		final List<String> groups = new ArrayList<>();
+		for (final Argument argument : spec.getArguments()) {
+			groups.add(join(getCalls(argument)));
+		}
+		return groups;
+	}
+
+	/**
+	 * @return The calls of the arguments expecting a value.
+	 */
+	private static List<String> getValueCalls(final ArgSpec spec) {
+		final List<String> valueCalls = new ArrayList<>();
+		for (final Argument argument : spec.getArguments()) {
+			if (argument.isValueRequired()) {
+				valueCalls.addAll(getCalls(argument));
+			}
+		}
+		return valueCalls;
+	}
+
+	private static List<String> getCalls(final Argument argument) {
+		final List<String> calls = new ArrayList<>(2);
+		if (null != argument.getShortCall()) {
+			calls.add(argument.getShortCall());
+		}
+		if (null != argument.getLongCall()) {
+			calls.add(argument.getLongCall());
+		}
+		return calls;
+	}
+
+	/**
+	 * @return The options declaring the calls of an argument to the fish complete
+	 *         command : -l for a call starting with "--", -o for the other ones.
+	 */
+	private static String getFishOptions(final Argument argument) {
+		final StringBuilder options = new StringBuilder();
+		for (final String call : getCalls(argument)) {
+			if (call.startsWith("--") && (call.length() > 2)) {
+				options.append(" -l ").append(quoteFish(call.substring(2)));
+			} else if (call.startsWith("-") && (call.length() > 1)) {
+				options.append(" -o ").append(quoteFish(call.substring(1)));
+			}
+		}
+		return options.toString();
+	}
+
+	/**
+	 * @return A shell function name derived from the program name.
+	 */
+	private static String getFunctionName(final String programName) {
+		return "_" + programName.replaceAll("[^A-Za-z0-9_]", "_") + "_complete";
+	}
+
+	private static String join(final List<String> words) {
+		return String.join(" ", words);
+	}
+
+	/**
+	 * @return The words, each one single-quoted for bash and zsh.
+	 */
+	private static String quoteAll(final List<String> words) {
+		final List<String> quotedWords = new ArrayList<>(words.size());
+		for (final String word : words) {
+			quotedWords.add(quote(word));
+		}
+		return join(quotedWords);
+	}
+
+	/**
+	 * @return The text single-quoted for bash and zsh.
+	 */
+	private static String quote(final String text) {
+		return "'" + text.replace("'", "'\\''") + "'";
+	}
+
+	/**
+	 * @return The text single-quoted for fish.
+	 */
+	private static String quoteFish(final String text) {
+		return "'" + text.replace("\\", "\\\\").replace("'", "\\'") + "'";
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.argbox.completion;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Provides the candidate values of an argument or of the positional values,
+ * when completing a command line. See {@link ValueProviders} for the built-in
+ * ones.
+ */
+@FunctionalInterface
+public interface ValueProvider {
+
+	/**
+	 * @param prefix
+	 *            The start of the value typed so far, possibly empty. The
+	 *            provider may ignore it : the candidates not starting with it are
+	 *            filtered out by the {@link CompletionEngine}.
+	 * @return The candidate values.
+	 * @throws IOException
+	 *             If the values cannot be listed.
+	 */
+	List<String> getValues(String prefix) throws IOException;
+
+}
@@ -0,0 +1,111 @@
+package com.argbox.completion;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The built-in {@link ValueProvider}s.
+ */
+public final class ValueProviders {
+
+	private ValueProviders() {
+	}
+
+	/**
+	 * @return A provider of the files and directories of the directory typed so
+	 *         far, or of the working directory. The directories end with '/'.
+	 */
+	public static ValueProvider files() {
+		return prefix -> {
+			final String directory = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+			final Path directoryPath = Paths.get(directory.isEmpty() ? "." : directory);
+			if (!Files.isDirectory(directoryPath)) {
+				return Collections.emptyList();
+			}
+			final List<String> files = new ArrayList<>();
+			try (DirectoryStream<Path> entries = Files.newDirectoryStream(directoryPath)) {
+				for (final Path entry : entries) {
+					files.add(directory + entry.getFileName() + (Files.isDirectory(entry) ? "/" : ""));
+				}
+			}
+			Collections.sort(files);
+			return files;
+		};
+	}
+
+	/**
+	 * @param enumType
+	 *            The enum whose constants are the values.
+	 * @return A provider of the names of the constants, in declaration order.
+	 */
+	public static ValueProvider enumConstants(final Class<? extends Enum<?>> enumType) {
+		final List<String> names = new ArrayList<>();
+		for (final Enum<?> constant : enumType.getEnumConstants()) {
+			names.add(constant.name());
+		}
+		return of(names.toArray(new String[names.size()]));
+	}
+
+	/**
+	 * @param values
+	 *            The values.
+	 * @return A provider of fixed values.
+	 */
+	public static ValueProvider of(final String... values) {
+		final List<String> fixedValues = Collections.unmodifiableList(Arrays.asList(values.clone()));
+		return prefix -> fixedValues;
+	}
+
+	/**
+	 * Caches the values of a slow provider on disk, so the next completions,
+	 * each run by a new process, do not compute them again. See
+	 * {@link CachedValueProvider}.
+	 *
+	 * @param cacheFile
+	 *            The file holding the values.
+	 * @param timeToLive
+	 *            How long the values are kept.
+	 * @param provider
+	 *            The slow provider, called with an empty prefix.
+	 * @return The caching provider.
+	 */
+	public static ValueProvider cached(final Path cacheFile, final Duration timeToLive, final ValueProvider provider) {
+		return new CachedValueProvider(cacheFile, timeToLive, provider);
+	}
+
+	/**
+	 * @param programName
+	 *            The name of the program.
+	 * @return The default directory of the cached values of a program, under the
+	 *         cache directory of the user.
+	 */
+	public static Path cacheDirectory(final String programName) {
+		final String xdgCache = System.getenv("XDG_CACHE_HOME");
+		final Path cacheRoot = null == xdgCache || xdgCache.isEmpty()
+				? Paths.get(System.getProperty("user.home"), ".cache")
+				: Paths.get(xdgCache);
+		return cacheRoot.resolve(programName).resolve("completion");
+	}
+
+	/**
+	 * Lists the values starting with a prefix.
+	 */
+	static List<String> filter(final List<String> values, final String prefix) {
+		final List<String> matchingValues = new ArrayList<>();
+		for (final String value : values) {
+			if (value.startsWith(prefix)) {
+				matchingValues.add(value);
+			}
+		}
+		return matchingValues;
+	}
+
+}
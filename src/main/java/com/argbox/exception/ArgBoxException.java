@@ -54,6 +54,33 @@ public class ArgBoxException extends Exception {
 		}
 	}
 
+	/**
+	 * Constructeur des variantes sans pile d'appels ou sans exceptions
+	 * supprimes, voir {@link StacklessArgBoxException} et
+	 * {@link Throwable#Throwable(String, Throwable, boolean, boolean)}.
+	 *
+	 * @param message
+	 *            Le message principal.
+	 * @param errors
+	 *            Les messages d'erreur secondaires.
+	 * @param enableSuppression
+	 *            Indique si des exceptions supprimes peuvent tre ajoutes.
+	 * @param writableStackTrace
+	 *            Indique si la pile d'appels est remplie.
+	 */
+	protected ArgBoxException(final String message, final List<String> errors, final boolean enableSuppression,
+			final boolean writableStackTrace) {
+		super(message, null, enableSuppression, writableStackTrace);
+		this.errors = new ArrayList<>();
+		if (StringUtils.isNotBlank(message)) {
+			this.errors.add(message);
+		}
+		if (null != errors) {
+			this.errors.addAll(errors);
+			multiple = this.errors.size() > 1;
+		}
+	}
+
 	/**
 	 * Constructeur pour plusieurs messages d'erreurs. Sans message principal.
 	 *
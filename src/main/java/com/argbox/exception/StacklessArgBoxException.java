@@ -0,0 +1,25 @@
+package com.argbox.exception;
+
+import java.util.List;
+
+/**
+ * An {@link ArgBoxException} without stack trace nor suppressed exceptions,
+ * cheap enough to reject many command lines per second. The errors tell what is
+ * wrong with the command line, so the stack trace would only tell where the
+ * parse was called from.
+ */
+public class StacklessArgBoxException extends ArgBoxException {
+
+	private static final long serialVersionUID = 2305398718204662513L;
+
+	/**
+	 * @param message
+	 *            The main message, first in the errors.
+	 * @param errors
+	 *            The error messages.
+	 */
+	public StacklessArgBoxException(final String message, final List<String> errors) {
+		super(message, errors, false, false);
+	}
+
+}
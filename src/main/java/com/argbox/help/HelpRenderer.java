@@ -0,0 +1,354 @@
+package com.argbox.help;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.argbox.model.Argument;
+import com.argbox.model.Positional;
+import com.argbox.model.Subcommand;
+
+/**
+ * Renders the help manual of a set of arguments, straight into an
+ * {@link Appendable} so a large manual never needs to exist as one String.
+ * <p>
+ * Two layouts are available. The manual layout is the historical one, one
+ * paragraph per argument. The column layout fits a terminal width : the calls
+ * are in a first column and the help lines are wrapped in a second one. The
+ * column widths are computed once, when the renderer is built.
+ */
+public class HelpRenderer {
+
+	private static final String TITLE = "HELP MANUAL\n\n";
+
+	private static final String MANDATORY_LINE = "This argument is mandatory on the command line.\n";
+
+	private static final String NOT_MANDATORY_LINE = "This argument is not mandatory on the command line.\n";
+
+	private static final String NO_VALUE_LINE = "This argument has no value. If a value is present, it will be ignored.\n";
+
+	private static final String MANDATORY_MARK = "(mandatory)";
+
+	private static final String NO_VALUE_MARK = "(no value)";
+
+	private static final String INDENT = "  ";
+
+	private static final String CALL_SEPARATOR = ", ";
+
+	/**
+	 * The narrowest text column the column layout will wrap the help lines in.
+	 */
+	private static final int MIN_TEXT_WIDTH = 20;
+
+	private final List<Argument> arguments;
+
+	/**
+	 * The positional values, described after the arguments, or null.
+	 */
+	private final Positional positional;
+
+	/**
+	 * The subcommands, described last, by name and help line only.
+	 */
+	private final List<Subcommand> subcommands;
+
+	/**
+	 * The terminal width, or 0 for the manual layout.
+	 */
+	private final int width;
+
+	/**
+	 * Width of the calls column, including its indentation and trailing spaces.
+	 */
+	private final int callsWidth;
+
+	/**
+	 * Width of the help lines column.
+	 */
+	private final int textWidth;
+
+	/**
+	 * Builds a renderer using the manual layout.
+	 *
+	 * @param arguments
+	 *            The arguments to describe, in display order.
+	 */
+	public HelpRenderer(final Collection<Argument> arguments) {
+		this(arguments, 0);
+	}
+
+	/**
+	 * Builds a renderer using the column layout for the given terminal width, or
+	 * the manual layout if the width is 0 or less.
+	 *
+	 * @param arguments
+	 *            The arguments to describe, in display order.
+	 * @param width
+	 *            The terminal width, in characters.
+	 */
+	public HelpRenderer(final Collection<Argument> arguments, final int width) {
+		this(arguments, null, width);
+	}
+
+	/**
+	 * Builds a renderer describing the positional values after the arguments,
+	 * using the column layout for the given terminal width, or the manual layout
+	 * if the width is 0 or less.
+	 *
+	 * @param arguments
+	 *            The arguments to describe, in display order.
+	 * @param positional
+	 *            The positional values, or null.
+	 * @param width
+	 *            The terminal width, in characters.
+	 */
+	public HelpRenderer(final Collection<Argument> arguments, final Positional positional, final int width) {
+		this(arguments, positional, Collections.emptyList(), width);
+	}
+
+	/**
+	 * Builds a renderer describing the positional values and the subcommands
+	 * after the arguments, using the column layout for the given terminal width,
+	 * or the manual layout if the width is 0 or less. The subcommands are not
+	 * compiled.
+	 *
+	 * @param arguments
+	 *            The arguments to describe, in display order.
+	 * @param positional
+	 *            The positional values, or null.
+	 * @param subcommands
+	 *            The subcommands, in display order.
+	 * @param width
+	 *            The terminal width, in characters.
+	 */
+	public HelpRenderer(final Collection<Argument> arguments, final Positional positional,
+			final Collection<Subcommand> subcommands, final int width) {
+		this.arguments = Collections.unmodifiableList(new ArrayList<>(arguments));
+		this.positional = positional;
+		this.subcommands = Collections.unmodifiableList(new ArrayList<>(subcommands));
+		this.width = Math.max(width, 0);
+		int longestCalls = null == positional ? 0 : getPositionalCall().length();
+		for (final Subcommand subcommand : this.subcommands) {
+			longestCalls = Math.max(longestCalls, subcommand.getName().length());
+		}
+		for (final Argument arg : this.arguments) {
+			longestCalls = Math.max(longestCalls,
+					arg.getShortCall().length() + CALL_SEPARATOR.length() + arg.getLongCall().length());
+		}
+		final int fittingCallsWidth = (2 * INDENT.length()) + longestCalls;
+		callsWidth = Math.min(fittingCallsWidth, Math.max(this.width - MIN_TEXT_WIDTH, INDENT.length()));
+		textWidth = Math.max(this.width - callsWidth, MIN_TEXT_WIDTH);
+	}
+
+	/**
+	 * @return The terminal width of the column layout, or 0 for the manual layout.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Renders the help manual into a String.
+	 *
+	 * @return The help manual.
+	 */
+	public String render() {
+		final StringBuilder helpBuilder = new StringBuilder();
+		try {
+			render(helpBuilder);
+		} catch (final IOException e) {
+			// A StringBuilder never throws IOException.
+			throw new UncheckedIOException(e);
+		}
+		return helpBuilder.toString();
+	}
+
+	/**
+	 * Streams the help manual into the given Appendable.
+	 *
+	 * @param out
+	 *            Where to write the manual.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	public void render(final Appendable out) throws IOException {
+		out.append(TITLE);
+		for (final Argument arg : arguments) {
+			if (width > 0) {
+				renderColumns(arg, out);
+			} else {
+				renderManual(arg, out);
+			}
+		}
+		if (null != positional) {
+			if (width > 0) {
+				renderPositionalColumns(out);
+			} else {
+				renderPositionalManual(out);
+			}
+		}
+		for (final Subcommand subcommand : subcommands) {
+			if (width > 0) {
+				renderCalls(subcommand.getName(), null, out);
+				wrap(subcommand.getHelpLine(), 0, out);
+				out.append('\n');
+			} else {
+				out.append("- ").append(subcommand.getName()).append(" : subcommand\n");
+				out.append(subcommand.getHelpLine()).append('\n');
+				out.append('\n');
+			}
+		}
+	}
+
+	private void renderManual(final Argument arg, final Appendable out) throws IOException {
+		out.append("- ").append(arg.getArgName())
+				.append(" : ").append(arg.getShortCall())
+				.append(" | ").append(arg.getLongCall())
+				.append('\n');
+		out.append(arg.getHelpLine()).append('\n');
+		out.append(arg.isMandatory() ? MANDATORY_LINE : NOT_MANDATORY_LINE);
+		if (arg.isValueNotRequired()) {
+			out.append(NO_VALUE_LINE);
+		}
+		out.append('\n');
+	}
+
+	private void renderPositionalManual(final Appendable out) throws IOException {
+		out.append("- ").append(positional.getName()).append(" : positional\n");
+		out.append(positional.getHelpLine()).append('\n');
+		out.append(positional.getAritySentence()).append('\n');
+		out.append('\n');
+	}
+
+	private void renderColumns(final Argument arg, final Appendable out) throws IOException {
+		renderCalls(arg.getShortCall(), arg.getLongCall(), out);
+		int column = 0;
+		column = wrap(arg.getHelpLine(), column, out);
+		if (arg.isMandatory()) {
+			column = appendWord(MANDATORY_MARK, 0, MANDATORY_MARK.length(), column, out);
+		}
+		if (arg.isValueNotRequired()) {
+			appendWord(NO_VALUE_MARK, 0, NO_VALUE_MARK.length(), column, out);
+		}
+		out.append('\n');
+	}
+
+	private void renderPositionalColumns(final Appendable out) throws IOException {
+		renderCalls(getPositionalCall(), null, out);
+		final int column = wrap(positional.getHelpLine(), 0, out);
+		final String arityMark = String.format("[%1$s..%2$s]", positional.getMinArity(),
+				positional.getMaxArity() == Positional.UNBOUNDED ? "*" : String.valueOf(positional.getMaxArity()));
+		appendWord(arityMark, 0, arityMark.length(), column, out);
+		out.append('\n');
+	}
+
+	private String getPositionalCall() {
+		return "<" + positional.getName() + ">";
+	}
+
+	/**
+	 * Writes the calls column, going to a new line if the calls do not fit.
+	 *
+	 * @param firstCall
+	 *            The first call, as displayed.
+	 * @param secondCall
+	 *            The second call, or null.
+	 * @param out
+	 *            Where to write the calls.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	private void renderCalls(final String firstCall, final String secondCall, final Appendable out)
+			throws IOException {
+		out.append(INDENT).append(firstCall);
+		int callsLength = INDENT.length() + firstCall.length();
+		if (null != secondCall) {
+			out.append(CALL_SEPARATOR).append(secondCall);
+			callsLength += CALL_SEPARATOR.length() + secondCall.length();
+		}
+		if (callsLength + INDENT.length() > callsWidth) {
+			out.append('\n');
+			pad(out, callsWidth);
+		} else {
+			pad(out, callsWidth - callsLength);
+		}
+	}
+
+	/**
+	 * Appends the words of a text to the text column, going to a new indented
+	 * line each time the next word does not fit.
+	 *
+	 * @param text
+	 *            The text to append.
+	 * @param startColumn
+	 *            The current position in the text column.
+	 * @param out
+	 *            Where to write the text.
+	 * @return The position in the text column after the text.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	private int wrap(final String text, final int startColumn, final Appendable out) throws IOException {
+		int column = startColumn;
+		int index = 0;
+		final int length = text.length();
+		while (index < length) {
+			while ((index < length) && Character.isWhitespace(text.charAt(index))) {
+				index++;
+			}
+			int end = index;
+			while ((end < length) && !Character.isWhitespace(text.charAt(end))) {
+				end++;
+			}
+			if (end > index) {
+				column = appendWord(text, index, end, column, out);
+			}
+			index = end;
+		}
+		return column;
+	}
+
+	/**
+	 * Appends a single word to the text column, on a new indented line if it does
+	 * not fit on the current one.
+	 *
+	 * @param text
+	 *            The text holding the word.
+	 * @param start
+	 *            The index of the first character of the word.
+	 * @param end
+	 *            The index after the last character of the word.
+	 * @param startColumn
+	 *            The current position in the text column.
+	 * @param out
+	 *            Where to write the word.
+	 * @return The position in the text column after the word.
+	 * @throws IOException
+	 *             If the Appendable fails.
+	 */
+	private int appendWord(final String text, final int start, final int end, final int startColumn,
+			final Appendable out) throws IOException {
+		int column = startColumn;
+		final int wordLength = end - start;
+		if ((column > 0) && ((column + 1 + wordLength) > textWidth)) {
+			out.append('\n');
+			pad(out, callsWidth);
+			column = 0;
+		} else if (column > 0) {
+			out.append(' ');
+			column++;
+		}
+		out.append(text, start, end);
+		return column + wordLength;
+	}
+
+	private static void pad(final Appendable out, final int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			out.append(' ');
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.argbox.instrument;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link ParseListener} counting the parses, the failures by phase and the
+ * leftovers. The counters are striped, so parsing threads do not contend on
+ * them.
+ */
+public class ParseCounters implements ParseListener {
+
+	private final LongAdder parses = new LongAdder();
+
+	private final LongAdder leftovers = new LongAdder();
+
+	private final Map<ParsePhase, LongAdder> failures = new EnumMap<>(ParsePhase.class);
+
+	public ParseCounters() {
+		for (final ParsePhase phase : ParsePhase.values()) {
+			failures.put(phase, new LongAdder());
+		}
+	}
+
+	@Override
+	public void parseCompleted(final long durationNanos, final int leftoverCount, final ParsePhase failedPhase) {
+		parses.increment();
+		leftovers.add(leftoverCount);
+		if (null != failedPhase) {
+			failures.get(failedPhase).increment();
+		}
+	}
+
+	/**
+	 * @return The number of parses, successful or not.
+	 */
+	public long getParseCount() {
+		return parses.sum();
+	}
+
+	/**
+	 * @return The number of failed parses.
+	 */
+	public long getFailureCount() {
+		return failures.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	/**
+	 * @param phase
+	 *            The phase that rejected the command lines.
+	 * @return The number of parses failed by this phase.
+	 */
+	public long getFailureCount(final ParsePhase phase) {
+		return failures.get(phase).sum();
+	}
+
+	/**
+	 * @return The number of strings that were not consumed, over all parses.
+	 */
+	public long getLeftoverCount() {
+		return leftovers.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%1$s parses, %2$s failures %3$s, %4$s leftovers", getParseCount(), getFailureCount(),
+				failures, getLeftoverCount());
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.argbox.instrument;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.argbox.model.Argument;
+
+/**
+ * Receives the timings of the parses of an {@link com.argbox.ArgSpec}, see
+ * {@link com.argbox.ArgBox#setParseListener(ParseListener)}. A spec without
+ * listener does not even read the clock.
+ * <p>
+ * A spec can parse on many threads at once, and the validators may run on the
+ * validation executor, so implementations must be thread-safe. They should also
+ * be fast, as they run inside the parse.
+ */
+public interface ParseListener {
+
+	/**
+	 * Called when a phase of the parse has run. The phase may have found problems
+	 * on the command line : they are reported by
+	 * {@link #parseCompleted(long, int, ParsePhase)}.
+	 *
+	 * @param phase
+	 *            The phase.
+	 * @param durationNanos
+	 *            How long the phase ran, in nanoseconds.
+	 */
+	default void phaseCompleted(final ParsePhase phase, final long durationNanos) {
+	}
+
+	/**
+	 * Called when the validator of an argument returns, including the conversion
+	 * of a typed value. The value is not given, as it may be a secret.
+	 *
+	 * @param argument
+	 *            The validated argument.
+	 * @param durationNanos
+	 *            How long the validation ran, in nanoseconds.
+	 * @param valid
+	 *            True if the value is valid.
+	 */
+	default void validatorCompleted(final Argument argument, final long durationNanos, final boolean valid) {
+	}
+
+	/**
+	 * Called once per parse, when it returns or throws.
+	 *
+	 * @param durationNanos
+	 *            How long the whole parse ran, in nanoseconds.
+	 * @param leftoverCount
+	 *            The number of strings that were not consumed.
+	 * @param failedPhase
+	 *            The phase that rejected the command line, or null if the parse
+	 *            succeeded.
+	 */
+	default void parseCompleted(final long durationNanos, final int leftoverCount, final ParsePhase failedPhase) {
+	}
+
+	/**
+	 * Combines several listeners into one, called in the given order.
+	 *
+	 * @param listeners
+	 *            The listeners.
+	 * @return The combined listener.
+	 */
+	static ParseListener of(final ParseListener... listeners) {
+		final List<ParseListener> all = Arrays.asList(listeners.clone());
+		return new ParseListener() {
+
+			@Override
+			public void phaseCompleted(final ParsePhase phase, final long durationNanos) {
+				all.forEach(listener -> listener.phaseCompleted(phase, durationNanos));
+			}
+
+			@Override
+			public void validatorCompleted(final Argument argument, final long durationNanos, final boolean valid) {
+				all.forEach(listener -> listener.validatorCompleted(argument, durationNanos, valid));
+			}
+
+			@Override
+			public void parseCompleted(final long durationNanos, final int leftoverCount,
+					final ParsePhase failedPhase) {
+				all.forEach(listener -> listener.parseCompleted(durationNanos, leftoverCount, failedPhase));
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,39 @@
+package com.argbox.instrument;
+
+/**
+ * The phases of a parse, in the order they run. A failed parse is reported
+ * with the phase that rejected the command line, which tells the kind of
+ * failure.
+ */
+public enum ParsePhase {
+
+	/**
+	 * Matching the calls and values of the command line, including the argument
+	 * files and the subcommands. Fails if an argument file cannot be read, a
+	 * quote is never closed or a subcommand cannot be compiled.
+	 */
+	TOKENIZE,
+
+	/**
+	 * Looking for the values of the missing arguments in their fallback sources :
+	 * the environment, the system properties and the properties file. Fails if
+	 * the properties file cannot be read.
+	 */
+	RESOLVE_FALLBACKS,
+
+	/**
+	 * Checking that the mandatory arguments are present.
+	 */
+	CHECK_MANDATORY,
+
+	/**
+	 * Running the validators and converting the typed values.
+	 */
+	VALIDATE,
+
+	/**
+	 * Checking the strings that were not consumed.
+	 */
+	CHECK_LEFTOVERS;
+
+}
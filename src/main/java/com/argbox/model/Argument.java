@@ -1,5 +1,8 @@
 package com.argbox.model;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Predicate;
 
 import org.apache.commons.lang3.builder.CompareToBuilder;
@@ -22,8 +25,26 @@ public class Argument implements Comparable<Argument> {
 
 	private final Predicate<String> validator;
 
+	/**
+	 * True if the presence of this argument makes the rest of the command line
+	 * irrelevant, like a help or version argument.
+	 */
+	private final boolean shortCircuit;
+
+	/**
+	 * Where to look for the value when the argument is not on the command line,
+	 * in order.
+	 */
+	private final List<FallbackSource> fallbacks;
+
 	public Argument(final String argName, final String shortCall, final String longCall, final String helpLine,
 			final boolean mandatory, final boolean valueNotRequired, final Predicate<String> validator) {
+		this(argName, shortCall, longCall, helpLine, mandatory, valueNotRequired, validator, false);
+	}
+
+	public Argument(final String argName, final String shortCall, final String longCall, final String helpLine,
+			final boolean mandatory, final boolean valueNotRequired, final Predicate<String> validator,
+			final boolean shortCircuit) {
 		this.argName = argName;
 		this.shortCall = shortCall;
 		this.longCall = longCall;
@@ -31,6 +52,44 @@ public class Argument implements Comparable<Argument> {
 		this.valueNotRequired = valueNotRequired;
 		this.mandatory = mandatory;
 		this.validator = validator;
+		this.shortCircuit = shortCircuit;
+		fallbacks = Collections.emptyList();
+	}
+
+	/**
+	 * Copies an argument, replacing its fallback sources.
+	 *
+	 * @param other
+	 *            The argument to copy.
+	 * @param fallbacks
+	 *            The fallback sources of the copy, not copied so expected to be
+	 *            unmodifiable.
+	 */
+	protected Argument(final Argument other, final List<FallbackSource> fallbacks) {
+		argName = other.argName;
+		shortCall = other.shortCall;
+		longCall = other.longCall;
+		helpLine = other.helpLine;
+		valueNotRequired = other.valueNotRequired;
+		mandatory = other.mandatory;
+		validator = other.validator;
+		shortCircuit = other.shortCircuit;
+		this.fallbacks = fallbacks;
+	}
+
+	/**
+	 * Copies this argument, adding sources where its value is looked for when it
+	 * is not on the command line. The sources are tried in order, and only for
+	 * the arguments missing from the command line. A value found this way is
+	 * validated like a value of the command line, and makes a mandatory argument
+	 * present. A flag is present if its value is "true", whatever the case.
+	 *
+	 * @param sources
+	 *            The fallback sources, like {@link FallbackSource#environment(String)}.
+	 * @return The copy.
+	 */
+	public Argument withFallbacks(final FallbackSource... sources) {
+		return new Argument(this, Collections.unmodifiableList(Arrays.asList(sources.clone())));
 	}
 
 	public Predicate<String> getValidator() {
@@ -65,6 +124,14 @@ public class Argument implements Comparable<Argument> {
 		return !valueNotRequired;
 	}
 
+	public boolean isShortCircuit() {
+		return shortCircuit;
+	}
+
+	public List<FallbackSource> getFallbacks() {
+		return fallbacks;
+	}
+
 	@Override
 	public int hashCode() {
 		return new HashCodeBuilder(3, 5)
@@ -75,6 +142,8 @@ public class Argument implements Comparable<Argument> {
 				.append(mandatory)
 				.append(valueNotRequired)
 				.append(validator)
+				.append(shortCircuit)
+				.append(fallbacks)
 				.toHashCode();
 	}
 
@@ -98,6 +167,8 @@ public class Argument implements Comparable<Argument> {
 				.append(mandatory, other.mandatory)
 				.append(valueNotRequired, other.valueNotRequired)
 				.append(validator, other.validator)
+				.append(shortCircuit, other.shortCircuit)
+				.append(fallbacks, other.fallbacks)
 				.isEquals();
 	}
 
@@ -0,0 +1,24 @@
+package com.argbox.model;
+
+/**
+ * The types a {@link TypedArgument} value can be converted to. The integral and
+ * boolean values are stored as a primitive long, the decimal values as a
+ * primitive double, the others as an object.
+ */
+public enum ArgumentType {
+
+	INT,
+
+	LONG,
+
+	DOUBLE,
+
+	BOOLEAN,
+
+	ENUM,
+
+	PATH,
+
+	DURATION;
+
+}
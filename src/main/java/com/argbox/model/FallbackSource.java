@@ -0,0 +1,112 @@
+package com.argbox.model;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+
+/**
+ * A place where the value of an argument is looked for when the argument is
+ * not on the command line : an environment variable, a system property or a
+ * key of the properties file set with
+ * {@link com.argbox.ArgBox#setPropertiesFile(java.nio.file.Path)}. See
+ * {@link Argument#withFallbacks(FallbackSource...)}.
+ */
+public final class FallbackSource {
+
+	/**
+	 * The kinds of fallback sources.
+	 */
+	public enum Kind {
+
+		ENVIRONMENT,
+
+		SYSTEM_PROPERTY,
+
+		PROPERTIES_FILE;
+
+	}
+
+	private final Kind kind;
+
+	private final String key;
+
+	private FallbackSource(final Kind kind, final String key) {
+		this.kind = kind;
+		this.key = key;
+	}
+
+	/**
+	 * @param variable
+	 *            The name of the environment variable.
+	 * @return The source.
+	 */
+	public static FallbackSource environment(final String variable) {
+		return new FallbackSource(Kind.ENVIRONMENT, variable);
+	}
+
+	/**
+	 * @param key
+	 *            The key of the system property.
+	 * @return The source.
+	 */
+	public static FallbackSource systemProperty(final String key) {
+		return new FallbackSource(Kind.SYSTEM_PROPERTY, key);
+	}
+
+	/**
+	 * @param key
+	 *            The key in the properties file of the ArgBox.
+	 * @return The source.
+	 */
+	public static FallbackSource propertiesFile(final String key) {
+		return new FallbackSource(Kind.PROPERTIES_FILE, key);
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return How the source is shown in the error messages, like $APP_NAME for
+	 *         an environment variable, -Dapp.name for a system property or
+	 *         app.name (properties file) for a key of the properties file.
+	 */
+	@Override
+	public String toString() {
+		switch (kind) {
+		case ENVIRONMENT:
+			return "$" + key;
+		case SYSTEM_PROPERTY:
+			return "-D" + key;
+		default:
+			return key + " (properties file)";
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return new HashCodeBuilder(7, 11)
+				.append(kind)
+				.append(key)
+				.toHashCode();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof FallbackSource)) {
+			return false;
+		}
+		final FallbackSource other = (FallbackSource) obj;
+		return new EqualsBuilder()
+				.append(kind, other.kind)
+				.append(key, other.key)
+				.isEquals();
+	}
+
+}
@@ -12,22 +12,49 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
  */
 public class ParsedArgument extends Argument {
 
-	String commandArg;
+	/**
+	 * The parse results this view reads and writes.
+	 */
+	private final ParsedValues values;
 
-	String value;
+	/**
+	 * The ordinal of the argument in the parse results.
+	 */
+	private final int ordinal;
 
 	public ParsedArgument(final Argument arg, final String commandArg, final String value) {
-		super(arg.getArgName(), arg.getShortCall(), arg.getLongCall(), arg.getHelpLine(), arg.isMandatory(),
-				arg.isValueNotRequired(), arg.getValidator());
-		this.commandArg = commandArg;
-		this.value = value;
+		this(arg, new ParsedValues(1, true), 0);
+		values.set(0, commandArg, value);
+	}
+
+	/**
+	 * Builds a view over the results of a parse.
+	 *
+	 * @param arg
+	 *            The registered argument.
+	 * @param values
+	 *            The parse results.
+	 * @param ordinal
+	 *            The ordinal of the argument in the parse results.
+	 */
+	public ParsedArgument(final Argument arg, final ParsedValues values, final int ordinal) {
+		super(arg, arg.getFallbacks());
+		this.values = values;
+		this.ordinal = ordinal;
+	}
+
+	/**
+	 * @return the ordinal of the argument in its spec
+	 */
+	public int getOrdinal() {
+		return ordinal;
 	}
 
 	/**
 	 * @return the commandArg
 	 */
 	public String getCommandArg() {
-		return commandArg;
+		return values.getCommandArg(ordinal);
 	}
 
 	/**
@@ -35,14 +62,14 @@ public class ParsedArgument extends Argument {
 	 *            the commandArg to set
 	 */
 	public void setCommandArg(final String commandArg) {
-		this.commandArg = commandArg;
+		values.set(ordinal, commandArg, getValue());
 	}
 
 	/**
 	 * @return the value
 	 */
 	public String getValue() {
-		return value;
+		return values.getValue(ordinal);
 	}
 
 	/**
@@ -50,15 +77,60 @@ public class ParsedArgument extends Argument {
 	 *            the value to set
 	 */
 	public void setValue(final String value) {
-		this.value = value;
+		values.set(ordinal, getCommandArg(), value);
+	}
+
+	/**
+	 * @return the longValue
+	 */
+	public long getLongValue() {
+		return values.getLongValue(ordinal);
+	}
+
+	/**
+	 * @param longValue
+	 *            the longValue to set
+	 */
+	public void setLongValue(final long longValue) {
+		values.setLongValue(ordinal, longValue);
+	}
+
+	/**
+	 * @return the doubleValue
+	 */
+	public double getDoubleValue() {
+		return values.getDoubleValue(ordinal);
+	}
+
+	/**
+	 * @param doubleValue
+	 *            the doubleValue to set
+	 */
+	public void setDoubleValue(final double doubleValue) {
+		values.setDoubleValue(ordinal, doubleValue);
+	}
+
+	/**
+	 * @return the typedValue
+	 */
+	public Object getTypedValue() {
+		return values.getTypedValue(ordinal);
+	}
+
+	/**
+	 * @param typedValue
+	 *            the typedValue to set
+	 */
+	public void setTypedValue(final Object typedValue) {
+		values.setTypedValue(ordinal, typedValue);
 	}
 
 	@Override
 	public int hashCode() {
 		return new HashCodeBuilder(9, 5)
 				.appendSuper(super.hashCode())
-				.append(value)
-				.append(commandArg)
+				.append(getValue())
+				.append(getCommandArg())
 				.toHashCode();
 	}
 
@@ -76,8 +148,8 @@ public class ParsedArgument extends Argument {
 		final ParsedArgument other = (ParsedArgument) obj;
 		return new EqualsBuilder()
 				.appendSuper(super.equals(other))
-				.append(value, other.value)
-				.append(commandArg, other.commandArg)
+				.append(getValue(), other.getValue())
+				.append(getCommandArg(), other.getCommandArg())
 				.isEquals();
 	}
 
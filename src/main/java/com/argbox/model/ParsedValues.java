@@ -0,0 +1,300 @@
+package com.argbox.model;
+
+import java.util.Arrays;
+
+/**
+ * The results of a parse, stored in flat arrays indexed by the ordinal of each
+ * argument, which is its position in the compiled spec. An argument is present
+ * when its command token is not null. Parsing only allocates these arrays and
+ * the values themselves : the {@link ParsedArgument} views are created on
+ * demand.
+ */
+public final class ParsedValues {
+
+	private static final int[] NO_POSITIONS = {};
+
+	private final String[] commandArgs;
+
+	private final String[] values;
+
+	/**
+	 * The position of the call of each argument on the command line, plus one, so
+	 * 0 stands for a value found elsewhere.
+	 */
+	private final int[] positions;
+
+	/**
+	 * True for each value attached to the token of its call, like --name=Bob or
+	 * -nBob, false for a value in the token after its call.
+	 */
+	private final boolean[] attached;
+
+	/**
+	 * The positions of the leftovers on the command line.
+	 */
+	private int[] leftoverPositions = NO_POSITIONS;
+
+	private int leftoverCount;
+
+	/**
+	 * The ordinals of the present arguments, in command line order.
+	 */
+	private final int[] order;
+
+	private int presentCount;
+
+	/**
+	 * The number of positional values met, including the ones beyond the max
+	 * arity.
+	 */
+	private long positionalCount;
+
+	/**
+	 * The converted values of the {@link TypedArgument}s, or null if the spec has
+	 * none.
+	 */
+	private final long[] longValues;
+
+	private final double[] doubleValues;
+
+	private final Object[] typedValues;
+
+	/**
+	 * @param argumentCount
+	 *            The number of arguments of the spec.
+	 * @param typed
+	 *            True if the spec holds {@link TypedArgument}s, so the arrays of
+	 *            converted values are needed.
+	 */
+	public ParsedValues(final int argumentCount, final boolean typed) {
+		commandArgs = new String[argumentCount];
+		values = new String[argumentCount];
+		positions = new int[argumentCount];
+		attached = new boolean[argumentCount];
+		order = new int[argumentCount];
+		longValues = typed ? new long[argumentCount] : null;
+		doubleValues = typed ? new double[argumentCount] : null;
+		typedValues = typed ? new Object[argumentCount] : null;
+	}
+
+	/**
+	 * Copies the results found so far by the parent of a subcommand into these
+	 * empty results of the subcommand.
+	 *
+	 * @param parent
+	 *            The results of the parent.
+	 */
+	public void inherit(final ParsedValues parent) {
+		for (int i = 0; i < parent.presentCount; i++) {
+			final int ordinal = parent.order[i];
+			set(ordinal, parent.commandArgs[ordinal], parent.values[ordinal], parent.getPosition(ordinal),
+					parent.attached[ordinal]);
+		}
+		for (int i = 0; i < parent.leftoverCount; i++) {
+			addLeftoverPosition(parent.leftoverPositions[i]);
+		}
+		positionalCount = parent.positionalCount;
+	}
+
+	/**
+	 * Clears the results, so they can be reused by another parse. Only the slots
+	 * of the present arguments are cleared, and no memory is allocated.
+	 */
+	public void reset() {
+		for (int i = 0; i < presentCount; i++) {
+			final int ordinal = order[i];
+			commandArgs[ordinal] = null;
+			values[ordinal] = null;
+			positions[ordinal] = 0;
+			attached[ordinal] = false;
+			if (null != typedValues) {
+				longValues[ordinal] = 0;
+				doubleValues[ordinal] = 0;
+				typedValues[ordinal] = null;
+			}
+		}
+		presentCount = 0;
+		leftoverCount = 0;
+		positionalCount = 0;
+	}
+
+	/**
+	 * Records an argument found on the command line. If the argument is already
+	 * present, its token and value are replaced but it keeps its position.
+	 *
+	 * @param ordinal
+	 *            The ordinal of the argument.
+	 * @param commandArg
+	 *            The call used on the command line.
+	 * @param value
+	 *            The value, or null.
+	 */
+	public void set(final int ordinal, final String commandArg, final String value) {
+		set(ordinal, commandArg, value, positions[ordinal] - 1);
+	}
+
+	/**
+	 * Records an argument found on the command line, at the given position.
+	 *
+	 * @param ordinal
+	 *            The ordinal of the argument.
+	 * @param commandArg
+	 *            The call used on the command line.
+	 * @param value
+	 *            The value, or null.
+	 * @param position
+	 *            The index of the call on the command line, or -1 if the value
+	 *            comes from elsewhere.
+	 */
+	public void set(final int ordinal, final String commandArg, final String value, final int position) {
+		set(ordinal, commandArg, value, position, false);
+	}
+
+	/**
+	 * Records an argument found on the command line, at the given position, with
+	 * its value either attached to the token of its call or in the next token.
+	 *
+	 * @param ordinal
+	 *            The ordinal of the argument.
+	 * @param commandArg
+	 *            The call used on the command line.
+	 * @param value
+	 *            The value, or null.
+	 * @param position
+	 *            The index of the call on the command line, or -1 if the value
+	 *            comes from elsewhere.
+	 * @param valueAttached
+	 *            True if the value is in the token of the call.
+	 */
+	public void set(final int ordinal, final String commandArg, final String value, final int position,
+			final boolean valueAttached) {
+		if (null == commandArgs[ordinal]) {
+			order[presentCount++] = ordinal;
+		}
+		commandArgs[ordinal] = commandArg;
+		values[ordinal] = value;
+		positions[ordinal] = position + 1;
+		attached[ordinal] = valueAttached;
+	}
+
+	/**
+	 * @param ordinal
+	 *            The ordinal of a present argument.
+	 * @return The index of its call on the command line, or -1 if its value comes
+	 *         from elsewhere.
+	 */
+	public int getPosition(final int ordinal) {
+		return positions[ordinal] - 1;
+	}
+
+	/**
+	 * @param ordinal
+	 *            The ordinal of a present argument.
+	 * @return The index of its value on the command line, in the token of its
+	 *         call or in the next one, or -1 if its value comes from elsewhere.
+	 */
+	public int getValuePosition(final int ordinal) {
+		final int position = getPosition(ordinal);
+		return (position < 0) || attached[ordinal] ? position : position + 1;
+	}
+
+	/**
+	 * Records the position of the next leftover.
+	 *
+	 * @param position
+	 *            The index of the leftover on the command line.
+	 */
+	public void addLeftoverPosition(final int position) {
+		if (leftoverCount == leftoverPositions.length) {
+			leftoverPositions = Arrays.copyOf(leftoverPositions, Math.max(8, 2 * leftoverCount));
+		}
+		leftoverPositions[leftoverCount++] = position;
+	}
+
+	/**
+	 * @param index
+	 *            The index of the leftover.
+	 * @return Its position on the command line.
+	 */
+	public int getLeftoverPosition(final int index) {
+		return leftoverPositions[index];
+	}
+
+	/**
+	 * @return The number of arguments of the spec.
+	 */
+	public int getArgumentCount() {
+		return commandArgs.length;
+	}
+
+	/**
+	 * @return The number of arguments found on the command line.
+	 */
+	public int getPresentCount() {
+		return presentCount;
+	}
+
+	/**
+	 * @param position
+	 *            The position among the present arguments, from 0 to
+	 *            {@link #getPresentCount()} excluded.
+	 * @return The ordinal of the argument found at this position.
+	 */
+	public int getOrdinalAt(final int position) {
+		return order[position];
+	}
+
+	public boolean isPresent(final int ordinal) {
+		return null != commandArgs[ordinal];
+	}
+
+	public String getCommandArg(final int ordinal) {
+		return commandArgs[ordinal];
+	}
+
+	public String getValue(final int ordinal) {
+		return values[ordinal];
+	}
+
+	/**
+	 * Counts a positional value.
+	 *
+	 * @return The number of positional values met, this one included.
+	 */
+	public long addPositional() {
+		return ++positionalCount;
+	}
+
+	public long getPositionalCount() {
+		return positionalCount;
+	}
+
+	public long getLongValue(final int ordinal) {
+		return null == longValues ? 0 : longValues[ordinal];
+	}
+
+	/**
+	 * Stores a converted int, long or boolean value. Each argument has its own
+	 * slot, so concurrent validators never write the same one.
+	 */
+	public void setLongValue(final int ordinal, final long longValue) {
+		longValues[ordinal] = longValue;
+	}
+
+	public double getDoubleValue(final int ordinal) {
+		return null == doubleValues ? 0 : doubleValues[ordinal];
+	}
+
+	public void setDoubleValue(final int ordinal, final double doubleValue) {
+		doubleValues[ordinal] = doubleValue;
+	}
+
+	public Object getTypedValue(final int ordinal) {
+		return null == typedValues ? null : typedValues[ordinal];
+	}
+
+	public void setTypedValue(final int ordinal, final Object typedValue) {
+		typedValues[ordinal] = typedValue;
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.argbox.model;
+
+import java.util.function.Consumer;
+
+/**
+ * The positional values of a command line : the tokens that are neither a
+ * call nor the value of an argument, like the paths given to a command. With a
+ * consumer, each value is handed over as soon as it is parsed and never kept,
+ * so a command line of any length is processed in bounded memory. Without a
+ * consumer, the values are collected in the
+ * {@link com.argbox.ParsedCommandLine}.
+ */
+public class Positional {
+
+	/**
+	 * The max arity of a positional argument taking any number of values.
+	 */
+	public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+	private final String name;
+
+	private final String helpLine;
+
+	private final int minArity;
+
+	private final int maxArity;
+
+	private final Consumer<String> consumer;
+
+	/**
+	 * @param name
+	 *            The name shown in the help and in the error messages.
+	 * @param helpLine
+	 *            The help line.
+	 * @param minArity
+	 *            The least number of values of a valid command line.
+	 * @param maxArity
+	 *            The greatest number of values of a valid command line, or
+	 *            {@link #UNBOUNDED}.
+	 * @param consumer
+	 *            Receives each value as it is parsed, on the parsing thread, or
+	 *            null to collect the values. It receives the values of every
+	 *            parse, even the ones failing later, and at most maxArity values
+	 *            per parse. It must be thread-safe if the spec parses on several
+	 *            threads, like the workers of a
+	 *            {@link com.argbox.batch.BatchParser}.
+	 */
+	public Positional(final String name, final String helpLine, final int minArity, final int maxArity,
+			final Consumer<String> consumer) {
+		this.name = name;
+		this.helpLine = helpLine;
+		this.minArity = minArity;
+		this.maxArity = maxArity;
+		this.consumer = consumer;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHelpLine() {
+		return helpLine;
+	}
+
+	public int getMinArity() {
+		return minArity;
+	}
+
+	public int getMaxArity() {
+		return maxArity;
+	}
+
+	public Consumer<String> getConsumer() {
+		return consumer;
+	}
+
+	public boolean isStreamed() {
+		return null != consumer;
+	}
+
+	/**
+	 * @return The sentence describing the arity, for the help manual.
+	 */
+	public String getAritySentence() {
+		if (maxArity == UNBOUNDED) {
+			return 0 == minArity ? "This argument takes any number of values."
+					: String.format("This argument takes at least %d values.", minArity);
+		}
+		return minArity == maxArity ? String.format("This argument takes exactly %d values.", minArity)
+				: String.format("This argument takes between %1$d and %2$d values.", minArity, maxArity);
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.argbox.model;
+
+import java.util.function.Supplier;
+
+import com.argbox.ArgBox;
+
+/**
+ * A subcommand of a command line, git-style : a token naming it selects its own
+ * arguments for the rest of the command line. Its arguments are registered in
+ * an {@link ArgBox} provided by a supplier, only called the first time the
+ * subcommand is met on a command line, so a tool with many subcommands only
+ * builds the one invoked. The arguments of the parent are inherited.
+ */
+public class Subcommand {
+
+	private final String name;
+
+	private final String helpLine;
+
+	private final Supplier<? extends ArgBox> argBoxSupplier;
+
+	/**
+	 * @param name
+	 *            The token selecting the subcommand, not starting with '-'.
+	 * @param helpLine
+	 *            The help line, shown in the help of the parent.
+	 * @param argBoxSupplier
+	 *            Provides the arguments, positional values and nested
+	 *            subcommands of the subcommand. The options of the provided
+	 *            ArgBox are ignored, the ones of the parent apply.
+	 */
+	public Subcommand(final String name, final String helpLine, final Supplier<? extends ArgBox> argBoxSupplier) {
+		this.name = name;
+		this.helpLine = helpLine;
+		this.argBoxSupplier = argBoxSupplier;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getHelpLine() {
+		return helpLine;
+	}
+
+	public Supplier<? extends ArgBox> getArgBoxSupplier() {
+		return argBoxSupplier;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,273 @@
+package com.argbox.model;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * An argument whose value is converted once, during the resolution of the
+ * command line, to an int, a long, a double, a boolean, an enum constant, a
+ * Path or a Duration. The validation rule is applied to the converted value, so
+ * the value is never parsed twice. Instances are built with the static
+ * factories, like {@link #ofInt(String, String, String, String, boolean, LongPredicate)}.
+ */
+public class TypedArgument extends Argument {
+
+	private static final LongPredicate ANY_LONG = value -> true;
+
+	private static final DoublePredicate ANY_DOUBLE = value -> true;
+
+	private static final Predicate<Object> ANY_OBJECT = value -> true;
+
+	private final ArgumentType type;
+
+	/**
+	 * The enum class of an {@link ArgumentType#ENUM} argument, null otherwise.
+	 */
+	private final Class<? extends Enum<?>> enumType;
+
+	/**
+	 * Rule for the {@link ArgumentType#INT} and {@link ArgumentType#LONG} values.
+	 */
+	private final LongPredicate longRule;
+
+	/**
+	 * Rule for the {@link ArgumentType#DOUBLE} values.
+	 */
+	private final DoublePredicate doubleRule;
+
+	/**
+	 * Rule for the {@link ArgumentType#ENUM}, {@link ArgumentType#PATH} and
+	 * {@link ArgumentType#DURATION} values.
+	 */
+	private final Predicate<Object> objectRule;
+
+	private TypedArgument(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory, final ArgumentType type,
+			final Class<? extends Enum<?>> enumType, final LongPredicate longRule, final DoublePredicate doubleRule,
+			final Predicate<Object> objectRule) {
+		super(argName, shortCall, longCall, helpLine, mandatory, false, null);
+		this.type = type;
+		this.enumType = enumType;
+		this.longRule = null == longRule ? ANY_LONG : longRule;
+		this.doubleRule = null == doubleRule ? ANY_DOUBLE : doubleRule;
+		this.objectRule = null == objectRule ? ANY_OBJECT : objectRule;
+	}
+
+	private TypedArgument(final TypedArgument other, final List<FallbackSource> fallbacks) {
+		super(other, fallbacks);
+		type = other.type;
+		enumType = other.enumType;
+		longRule = other.longRule;
+		doubleRule = other.doubleRule;
+		objectRule = other.objectRule;
+	}
+
+	@Override
+	public TypedArgument withFallbacks(final FallbackSource... sources) {
+		return new TypedArgument(this, Collections.unmodifiableList(Arrays.asList(sources.clone())));
+	}
+
+	/**
+	 * Builds an argument holding an int value.
+	 *
+	 * @param rule
+	 *            The rule the converted value must follow, or null.
+	 * @return The argument.
+	 */
+	public static TypedArgument ofInt(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory, final LongPredicate rule) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.INT, null, rule,
+				null, null);
+	}
+
+	/**
+	 * Builds an argument holding a long value.
+	 *
+	 * @param rule
+	 *            The rule the converted value must follow, or null.
+	 * @return The argument.
+	 */
+	public static TypedArgument ofLong(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory, final LongPredicate rule) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.LONG, null, rule,
+				null, null);
+	}
+
+	/**
+	 * Builds an argument holding a double value.
+	 *
+	 * @param rule
+	 *            The rule the converted value must follow, or null.
+	 * @return The argument.
+	 */
+	public static TypedArgument ofDouble(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory, final DoublePredicate rule) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.DOUBLE, null, null,
+				rule, null);
+	}
+
+	/**
+	 * Builds an argument holding a boolean value, written true or false on the
+	 * command line.
+	 *
+	 * @return The argument.
+	 */
+	public static TypedArgument ofBoolean(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.BOOLEAN, null,
+				null, null, null);
+	}
+
+	/**
+	 * Builds an argument holding a constant of the given enum, written with its
+	 * name on the command line, in any case.
+	 *
+	 * @param enumType
+	 *            The enum class.
+	 * @param rule
+	 *            The rule the converted value must follow, or null.
+	 * @return The argument.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E extends Enum<E>> TypedArgument ofEnum(final String argName, final String shortCall,
+			final String longCall, final String helpLine, final boolean mandatory, final Class<E> enumType,
+			final Predicate<? super E> rule) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.ENUM, enumType,
+				null, null, (Predicate<Object>) rule);
+	}
+
+	/**
+	 * Builds an argument holding a Path.
+	 *
+	 * @param rule
+	 *            The rule the converted value must follow, or null.
+	 * @return The argument.
+	 */
+	@SuppressWarnings("unchecked")
+	public static TypedArgument ofPath(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory, final Predicate<? super Path> rule) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.PATH, null, null,
+				null, (Predicate<Object>) rule);
+	}
+
+	/**
+	 * Builds an argument holding a Duration, written in the ISO-8601 format
+	 * (PT1M30S) or as a number followed by ms, s, m, h or d (90s).
+	 *
+	 * @param rule
+	 *            The rule the converted value must follow, or null.
+	 * @return The argument.
+	 */
+	@SuppressWarnings("unchecked")
+	public static TypedArgument ofDuration(final String argName, final String shortCall, final String longCall,
+			final String helpLine, final boolean mandatory, final Predicate<? super Duration> rule) {
+		return new TypedArgument(argName, shortCall, longCall, helpLine, mandatory, ArgumentType.DURATION, null,
+				null, null, (Predicate<Object>) rule);
+	}
+
+	public ArgumentType getType() {
+		return type;
+	}
+
+	public Class<? extends Enum<?>> getEnumType() {
+		return enumType;
+	}
+
+	/**
+	 * Converts the value of this argument in the results of a parse and stores
+	 * the result next to it, in its primitive or object form depending on the
+	 * type, then applies the rule.
+	 *
+	 * @param values
+	 *            The parse results, created for a spec holding typed arguments.
+	 * @param ordinal
+	 *            The ordinal of this argument in the parse results.
+	 * @return True if the value could be converted and follows the rule.
+	 */
+	public boolean convert(final ParsedValues values, final int ordinal) {
+		final String value = values.getValue(ordinal);
+		try {
+			switch (type) {
+			case INT:
+				final int intValue = Integer.parseInt(value);
+				values.setLongValue(ordinal, intValue);
+				return longRule.test(intValue);
+			case LONG:
+				final long longValue = Long.parseLong(value);
+				values.setLongValue(ordinal, longValue);
+				return longRule.test(longValue);
+			case DOUBLE:
+				final double doubleValue = Double.parseDouble(value);
+				values.setDoubleValue(ordinal, doubleValue);
+				return doubleRule.test(doubleValue);
+			case BOOLEAN:
+				final boolean booleanValue = Boolean.parseBoolean(value);
+				if (!booleanValue && !"false".equalsIgnoreCase(value)) {
+					return false;
+				}
+				values.setLongValue(ordinal, booleanValue ? 1 : 0);
+				return true;
+			default:
+				final Object objectValue = convertObject(value);
+				values.setTypedValue(ordinal, objectValue);
+				return objectRule.test(objectValue);
+			}
+		} catch (final IllegalArgumentException | DateTimeParseException | ArithmeticException e) {
+			return false;
+		}
+	}
+
+	private Object convertObject(final String value) {
+		switch (type) {
+		case ENUM:
+			for (final Enum<?> constant : enumType.getEnumConstants()) {
+				if (constant.name().equalsIgnoreCase(value)) {
+					return constant;
+				}
+			}
+			throw new IllegalArgumentException(value);
+		case PATH:
+			return Paths.get(value);
+		case DURATION:
+			return parseDuration(value);
+		default:
+			throw new IllegalStateException(type.name());
+		}
+	}
+
+	private static Duration parseDuration(final String value) {
+		if (value.startsWith("P") || value.startsWith("p") || value.startsWith("-P")) {
+			return Duration.parse(value);
+		}
+		final String lowerValue = value.toLowerCase(Locale.ROOT);
+		if (lowerValue.length() < 2) {
+			throw new IllegalArgumentException(value);
+		}
+		if (lowerValue.endsWith("ms")) {
+			return Duration.ofMillis(Long.parseLong(lowerValue.substring(0, lowerValue.length() - 2)));
+		}
+		final long amount = Long.parseLong(lowerValue.substring(0, lowerValue.length() - 1));
+		switch (lowerValue.charAt(lowerValue.length() - 1)) {
+		case 's':
+			return Duration.ofSeconds(amount);
+		case 'm':
+			return Duration.ofMinutes(amount);
+		case 'h':
+			return Duration.ofHours(amount);
+		case 'd':
+			return Duration.ofDays(amount);
+		default:
+			throw new IllegalArgumentException(value);
+		}
+	}
+
+}
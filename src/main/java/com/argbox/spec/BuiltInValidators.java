@@ -0,0 +1,98 @@
+package com.argbox.spec;
+
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The validators a spec file can refer to by name :
+ * <ul>
+ * <li>any : every value is valid, the default;</li>
+ * <li>not-blank : the value holds a non whitespace character;</li>
+ * <li>integer, positive-integer : the value is a (strictly positive) int;</li>
+ * <li>decimal : the value is a double;</li>
+ * <li>existing-file, existing-directory : the value is the path of a regular
+ * file, or of a directory;</li>
+ * <li>regex:PATTERN : the whole value matches the regular expression.</li>
+ * </ul>
+ */
+public final class BuiltInValidators {
+
+	public static final String ANY = "any";
+
+	private static final String REGEX_PREFIX = "regex:";
+
+	private BuiltInValidators() {
+	}
+
+	/**
+	 * Finds a built-in validator from its name.
+	 *
+	 * @param name
+	 *            The name of the validator, or null for {@link #ANY}.
+	 * @return The validator, or null if no built-in validator has this name.
+	 */
+	public static Predicate<String> get(final String name) {
+		if (StringUtils.isBlank(name)) {
+			return get(ANY);
+		}
+		if (name.startsWith(REGEX_PREFIX)) {
+			try {
+				final Pattern pattern = Pattern.compile(name.substring(REGEX_PREFIX.length()));
+				return value -> pattern.matcher(value).matches();
+			} catch (final PatternSyntaxException e) {
+				return null;
+			}
+		}
+		switch (name) {
+		case ANY:
+			return value -> true;
+		case "not-blank":
+			return StringUtils::isNotBlank;
+		case "integer":
+			return value -> parseInt(value, Integer.MIN_VALUE);
+		case "positive-integer":
+			return value -> parseInt(value, 1);
+		case "decimal":
+			return BuiltInValidators::isDecimal;
+		case "existing-file":
+			return value -> isPath(value) && Files.isRegularFile(Paths.get(value));
+		case "existing-directory":
+			return value -> isPath(value) && Files.isDirectory(Paths.get(value));
+		default:
+			return null;
+		}
+	}
+
+	private static boolean parseInt(final String value, final int min) {
+		try {
+			return Integer.parseInt(value) >= min;
+		} catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static boolean isDecimal(final String value) {
+		try {
+			Double.parseDouble(value);
+			return true;
+		} catch (final NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static boolean isPath(final String value) {
+		try {
+			Paths.get(value);
+			return true;
+		} catch (final InvalidPathException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,354 @@
+package com.argbox.spec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.argbox.ArgBox;
+import com.argbox.exception.ArgBoxException;
+import com.argbox.model.Argument;
+
+/**
+ * Loads an {@link ArgBox} from a declarative spec file instead of register
+ * calls. The spec file is a UTF-8 properties file :
+ *
+ * <pre>
+ * arguments = name, verbose
+ * name.shortCall = -nm
+ * name.longCall = --name
+ * name.help = This is the name.
+ * name.mandatory = true
+ * name.validator = not-blank
+ * verbose.shortCall = -v
+ * verbose.longCall = --verbose
+ * verbose.help = Flag to trigger verbose mode.
+ * verbose.flag = true
+ * </pre>
+ *
+ * The arguments key lists the argument names in registration order. For each
+ * argument, shortCall, longCall and help are required; mandatory, flag and
+ * shortCircuit default to false; validator names one of the
+ * {@link BuiltInValidators} and defaults to any.
+ * <p>
+ * The first load writes the compiled definitions to a compact binary cache
+ * file, along with the checksum of the spec file and one of its own content. A
+ * cache whose content does not match its checksum, or naming a validator that
+ * is not built in, is ignored. The next loads memory-map the
+ * cache and skip the parsing of the properties and the checks of the spec file
+ * itself, as long as its checksum has not changed. The arguments are still
+ * registered with {@link ArgBox#registerAll(java.util.Collection)}, so the
+ * registration checks, a few hash lookups per argument, run on every load : the
+ * cache is a plain file that anything could write, and the ArgBox stays the only
+ * place deciding what a valid argument is. The cache is only written once the
+ * arguments are registered.
+ */
+public class SpecFileLoader {
+
+	private static final String CACHE_SUFFIX = ".cache";
+
+	/**
+	 * "ARGB", marks the start of a cache file.
+	 */
+	private static final int CACHE_MAGIC = 0x41524742;
+
+	/**
+	 * Bumped whenever the layout of the cache or the set of built-in validators
+	 * changes.
+	 */
+	private static final int CACHE_VERSION = 2;
+
+	private static final byte MANDATORY_BIT = 1;
+
+	private static final byte FLAG_BIT = 2;
+
+	private static final byte SHORT_CIRCUIT_BIT = 4;
+
+	/**
+	 * The size of a cached definition holding only empty strings.
+	 */
+	private static final int MIN_DEFINITION_SIZE = 5 * 4 + 1;
+
+	private SpecFileLoader() {
+	}
+
+	/**
+	 * Loads a spec file, using a cache file next to it, named after it with a
+	 * .cache suffix.
+	 *
+	 * @param specFile
+	 *            The spec file.
+	 * @return An ArgBox registering the arguments of the spec file.
+	 * @throws IOException
+	 *             If the spec file cannot be read.
+	 * @throws ArgBoxException
+	 *             If the spec file is invalid, or its arguments cannot be
+	 *             registered.
+	 */
+	public static ArgBox load(final Path specFile) throws IOException, ArgBoxException {
+		return load(specFile, specFile.resolveSibling(specFile.getFileName() + CACHE_SUFFIX));
+	}
+
+	/**
+	 * Loads a spec file, from the cache file if it is up to date, from the spec
+	 * file otherwise, then refreshing the cache file once the arguments are
+	 * registered. Either way, the arguments go through the registration checks.
+	 *
+	 * @param specFile
+	 *            The spec file.
+	 * @param cacheFile
+	 *            The binary cache file.
+	 * @return An ArgBox registering the arguments of the spec file.
+	 * @throws IOException
+	 *             If the spec file cannot be read.
+	 * @throws ArgBoxException
+	 *             If the spec file is invalid, or its arguments cannot be
+	 *             registered.
+	 */
+	public static ArgBox load(final Path specFile, final Path cacheFile) throws IOException, ArgBoxException {
+		final byte[] source = Files.readAllBytes(specFile);
+		final CRC32 crc = new CRC32();
+		crc.update(source, 0, source.length);
+		final long checksum = crc.getValue();
+		List<Definition> definitions = readCache(cacheFile, checksum);
+		final boolean cached = null != definitions;
+		if (!cached) {
+			definitions = parseSpec(source);
+		}
+		final List<Argument> arguments = new ArrayList<>(definitions.size());
+		for (final Definition definition : definitions) {
+			arguments.add(definition.toArgument());
+		}
+		final ArgBox argBox = new ArgBox();
+		argBox.registerAll(arguments);
+		if (!cached) {
+			writeCache(cacheFile, checksum, definitions);
+		}
+		return argBox;
+	}
+
+	/**
+	 * Parses and checks the spec file.
+	 *
+	 * @param source
+	 *            The content of the spec file.
+	 * @return The definitions of the arguments, in registration order.
+	 * @throws IOException
+	 *             If the spec file cannot be read as properties.
+	 * @throws ArgBoxException
+	 *             If some definitions are incomplete or refer to unknown
+	 *             validators.
+	 */
+	private static List<Definition> parseSpec(final byte[] source) throws IOException, ArgBoxException {
+		final Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(new ByteArrayInputStream(source), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		final List<Definition> definitions = new ArrayList<>();
+		final List<String> errors = new ArrayList<>(0);
+		for (final String argName : StringUtils.split(properties.getProperty("arguments", ""), ", ")) {
+			final Definition definition = new Definition();
+			definition.argName = argName;
+			definition.shortCall = properties.getProperty(argName + ".shortCall");
+			definition.longCall = properties.getProperty(argName + ".longCall");
+			definition.helpLine = properties.getProperty(argName + ".help");
+			definition.mandatory = Boolean.parseBoolean(properties.getProperty(argName + ".mandatory"));
+			definition.flag = Boolean.parseBoolean(properties.getProperty(argName + ".flag"));
+			definition.shortCircuit = Boolean.parseBoolean(properties.getProperty(argName + ".shortCircuit"));
+			definition.validator = properties.getProperty(argName + ".validator", BuiltInValidators.ANY).trim();
+			if (StringUtils.isAnyBlank(definition.shortCall, definition.longCall, definition.helpLine)) {
+				errors.add(String.format("[%1$s] shortCall, longCall and help are required !", argName));
+			}
+			if (null == BuiltInValidators.get(definition.validator)) {
+				errors.add(String.format("[%1$s] Unknown validator %2$s !", argName, definition.validator));
+			}
+			definitions.add(definition);
+		}
+		if (!errors.isEmpty()) {
+			throw new ArgBoxException("The spec file is invalid !", errors);
+		}
+		return definitions;
+	}
+
+	/**
+	 * Reads the definitions from the cache file.
+	 *
+	 * @param cacheFile
+	 *            The cache file.
+	 * @param checksum
+	 *            The checksum of the current spec file.
+	 * @return The definitions, or null if the cache file is missing, corrupt or
+	 *         out of date, or refers to a validator that is not built in.
+	 */
+	private static List<Definition> readCache(final Path cacheFile, final long checksum) {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if ((buffer.getInt() != CACHE_MAGIC) || (buffer.getInt() != CACHE_VERSION)
+					|| (buffer.getLong() != checksum)) {
+				return null;
+			}
+			final long payloadChecksum = buffer.getLong();
+			final CRC32 crc = new CRC32();
+			crc.update(buffer.duplicate());
+			if (crc.getValue() != payloadChecksum) {
+				return null;
+			}
+			final int count = buffer.getInt();
+			if ((count < 0) || (count > buffer.remaining() / MIN_DEFINITION_SIZE)) {
+				return null;
+			}
+			final List<Definition> definitions = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				final Definition definition = new Definition();
+				definition.argName = readString(buffer);
+				definition.shortCall = readString(buffer);
+				definition.longCall = readString(buffer);
+				definition.helpLine = readString(buffer);
+				final byte bits = buffer.get();
+				definition.mandatory = (bits & MANDATORY_BIT) != 0;
+				definition.flag = (bits & FLAG_BIT) != 0;
+				definition.shortCircuit = (bits & SHORT_CIRCUIT_BIT) != 0;
+				definition.validator = readString(buffer);
+				if (null == BuiltInValidators.get(definition.validator)) {
+					return null;
+				}
+				definitions.add(definition);
+			}
+			return definitions;
+		} catch (final IOException | BufferUnderflowException | IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the definitions to the cache file, through a temporary file so a
+	 * concurrent load never reads a partial cache. A cache that cannot be written
+	 * is silently skipped : the next load will parse the spec file again.
+	 *
+	 * @param cacheFile
+	 *            The cache file.
+	 * @param checksum
+	 *            The checksum of the spec file.
+	 * @param definitions
+	 *            The definitions to write.
+	 */
+	private static void writeCache(final Path cacheFile, final long checksum, final List<Definition> definitions) {
+		final List<byte[]> strings = new ArrayList<>(definitions.size() * 5);
+		int size = 4 + 4 + 8 + 8 + 4;
+		for (final Definition definition : definitions) {
+			for (final String value : new String[] { definition.argName, definition.shortCall, definition.longCall,
+					definition.helpLine, definition.validator }) {
+				final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				strings.add(bytes);
+				size += 4 + bytes.length;
+			}
+			size++;
+		}
+		final ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putLong(checksum);
+		final int payloadChecksumPosition = buffer.position();
+		buffer.putLong(0).putInt(definitions.size());
+		int index = 0;
+		for (final Definition definition : definitions) {
+			for (int i = 0; i < 4; i++) {
+				writeString(buffer, strings.get(index++));
+			}
+			buffer.put((byte) ((definition.mandatory ? MANDATORY_BIT : 0) | (definition.flag ? FLAG_BIT : 0)
+					| (definition.shortCircuit ? SHORT_CIRCUIT_BIT : 0)));
+			writeString(buffer, strings.get(index++));
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(buffer.array(), payloadChecksumPosition + 8, size - payloadChecksumPosition - 8);
+		buffer.putLong(payloadChecksumPosition, crc.getValue());
+		Path temporaryFile = null;
+		try {
+			final Path directory = cacheFile.toAbsolutePath().getParent();
+			temporaryFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+			Files.write(temporaryFile, buffer.array());
+			Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			// The cache is only an optimization.
+			deleteQuietly(temporaryFile);
+		}
+	}
+
+	private static void deleteQuietly(final Path file) {
+		if (null != file) {
+			try {
+				Files.deleteIfExists(file);
+			} catch (final IOException e) {
+				// Nothing more can be done.
+			}
+		}
+	}
+
+	/**
+	 * Reads a string from the cache, checking its length first so a corrupt cache
+	 * never allocates more than the file holds.
+	 *
+	 * @throws BufferUnderflowException
+	 *             If the length does not fit in the rest of the cache.
+	 */
+	private static String readString(final ByteBuffer buffer) {
+		final int length = buffer.getInt();
+		if ((length < 0) || (length > buffer.remaining())) {
+			throw new BufferUnderflowException();
+		}
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeString(final ByteBuffer buffer, final byte[] bytes) {
+		buffer.putInt(bytes.length).put(bytes);
+	}
+
+	/**
+	 * The definition of an argument, as read from the spec file or the cache.
+	 */
+	private static class Definition {
+
+		private String argName;
+
+		private String shortCall;
+
+		private String longCall;
+
+		private String helpLine;
+
+		private boolean mandatory;
+
+		private boolean flag;
+
+		private boolean shortCircuit;
+
+		private String validator;
+
+		private Argument toArgument() {
+			final Predicate<String> builtInValidator = BuiltInValidators.get(validator);
+			return new Argument(argName, shortCall, longCall, helpLine, mandatory, flag, builtInValidator,
+					shortCircuit);
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.argbox.validation;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * A validator remembering the result of an expensive validator for the values
+ * it has already checked, like filesystem checks or lookups. It is opt-in, per
+ * argument : wrap the validator given to
+ * {@link com.argbox.ArgBox#register(String, String, String, String, boolean, boolean, Predicate)}.
+ * <p>
+ * The cache is bounded : the least recently used value is evicted when it is
+ * full. An optional time to live also expires the results after a while. This
+ * class is thread-safe, and the wrapped validator is never called while holding
+ * the cache lock, so a slow validation does not block the other threads.
+ */
+public class CachedValidator implements Predicate<String> {
+
+	private final Predicate<String> validator;
+
+	private final int maximumSize;
+
+	/**
+	 * The time to live of a result, in nanoseconds, or 0 if results never expire.
+	 */
+	private final long timeToLiveNanos;
+
+	/**
+	 * The results by value, in access order so the eldest entry is the least
+	 * recently used one.
+	 */
+	private final Map<String, CachedResult> results;
+
+	private long hitCount;
+
+	private long missCount;
+
+	private long evictionCount;
+
+	/**
+	 * @param validator
+	 *            The validator to memoize.
+	 * @param maximumSize
+	 *            The maximum number of results kept.
+	 * @param timeToLive
+	 *            How long a result is kept, or null to keep it until evicted.
+	 */
+	public CachedValidator(final Predicate<String> validator, final int maximumSize, final Duration timeToLive) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("The maximum size of the cache must be positive !");
+		}
+		this.validator = validator;
+		this.maximumSize = maximumSize;
+		timeToLiveNanos = null == timeToLive ? 0 : timeToLive.toNanos();
+		results = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -1618468433424226510L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, CachedResult> eldest) {
+				final boolean evict = size() > CachedValidator.this.maximumSize;
+				if (evict) {
+					evictionCount++;
+				}
+				return evict;
+			}
+		};
+	}
+
+	/**
+	 * @param validator
+	 *            The validator to memoize.
+	 * @param maximumSize
+	 *            The maximum number of results kept.
+	 */
+	public CachedValidator(final Predicate<String> validator, final int maximumSize) {
+		this(validator, maximumSize, null);
+	}
+
+	@Override
+	public boolean test(final String value) {
+		final long now = timeToLiveNanos > 0 ? System.nanoTime() : 0;
+		synchronized (results) {
+			final CachedResult result = results.get(value);
+			if ((null != result) && ((timeToLiveNanos == 0) || ((now - result.time) < timeToLiveNanos))) {
+				hitCount++;
+				return result.valid;
+			}
+			missCount++;
+		}
+		final boolean valid = validator.test(value);
+		synchronized (results) {
+			results.put(value, new CachedResult(valid, now));
+		}
+		return valid;
+	}
+
+	/**
+	 * Forgets every result.
+	 */
+	public void invalidateAll() {
+		synchronized (results) {
+			results.clear();
+		}
+	}
+
+	/**
+	 * @return The number of validations answered from the cache.
+	 */
+	public long getHitCount() {
+		synchronized (results) {
+			return hitCount;
+		}
+	}
+
+	/**
+	 * @return The number of validations delegated to the wrapped validator.
+	 */
+	public long getMissCount() {
+		synchronized (results) {
+			return missCount;
+		}
+	}
+
+	/**
+	 * @return The number of results evicted because the cache was full.
+	 */
+	public long getEvictionCount() {
+		synchronized (results) {
+			return evictionCount;
+		}
+	}
+
+	/**
+	 * @return The number of results currently kept.
+	 */
+	public int size() {
+		synchronized (results) {
+			return results.size();
+		}
+	}
+
+	/**
+	 * The result of a validation, and when it was computed.
+	 */
+	private static class CachedResult {
+
+		private final boolean valid;
+
+		private final long time;
+
+		CachedResult(final boolean valid, final long time) {
+			this.valid = valid;
+			this.time = time;
+		}
+
+	}
+
+}
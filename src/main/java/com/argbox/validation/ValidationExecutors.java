@@ -0,0 +1,42 @@
+package com.argbox.validation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the default executor used to run the validators concurrently : one
+ * virtual thread per validation when the running JVM has virtual threads, a
+ * cached pool of daemon threads otherwise.
+ */
+public final class ValidationExecutors {
+
+	private static final ExecutorService DEFAULT_EXECUTOR = createDefaultExecutor();
+
+	private ValidationExecutors() {
+	}
+
+	/**
+	 * @return The shared default executor. It must not be shut down.
+	 */
+	public static ExecutorService defaultExecutor() {
+		return DEFAULT_EXECUTOR;
+	}
+
+	private static ExecutorService createDefaultExecutor() {
+		try {
+			// Looked up by reflection, as ArgBox targets JVMs without virtual threads.
+			final Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (final ReflectiveOperationException | UnsupportedOperationException e) {
+			final AtomicInteger threadCount = new AtomicInteger();
+			return Executors.newCachedThreadPool(runnable -> {
+				final Thread thread = new Thread(runnable, "argbox-validation-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+}
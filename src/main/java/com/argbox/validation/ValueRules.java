@@ -0,0 +1,66 @@
+package com.argbox.validation;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Common validation rules for the converted values of the
+ * {@link com.argbox.model.TypedArgument}s. The primitive rules never box the
+ * value they check.
+ */
+public final class ValueRules {
+
+	private ValueRules() {
+	}
+
+	/**
+	 * @param min
+	 *            The smallest valid value.
+	 * @param max
+	 *            The largest valid value.
+	 * @return A rule accepting the integral values between min and max, both
+	 *         included.
+	 */
+	public static LongPredicate range(final long min, final long max) {
+		return value -> (value >= min) && (value <= max);
+	}
+
+	/**
+	 * @param min
+	 *            The smallest valid value.
+	 * @param max
+	 *            The largest valid value.
+	 * @return A rule accepting the decimal values between min and max, both
+	 *         included.
+	 */
+	public static DoublePredicate range(final double min, final double max) {
+		return value -> (value >= min) && (value <= max);
+	}
+
+	/**
+	 * @param values
+	 *            The valid values.
+	 * @return A rule accepting only the given integral values.
+	 */
+	public static LongPredicate oneOf(final long... values) {
+		final long[] sortedValues = values.clone();
+		Arrays.sort(sortedValues);
+		return value -> Arrays.binarySearch(sortedValues, value) >= 0;
+	}
+
+	/**
+	 * @param values
+	 *            The valid values, an EnumSet for instance.
+	 * @return A rule accepting only the given values.
+	 */
+	public static <T> Predicate<T> oneOf(final Collection<? extends T> values) {
+		final Set<T> validValues = new HashSet<>(values);
+		return validValues::contains;
+	}
+
+}
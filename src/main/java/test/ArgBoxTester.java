@@ -1,10 +1,62 @@
 package test;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+import org.junit.Assume;
 import org.junit.Test;
 
 import com.argbox.ArgBox;
+import com.argbox.ArgSpec;
+import com.argbox.ParseContext;
+import com.argbox.ParseError;
+import com.argbox.ParseResult;
+import com.argbox.ParsedCommandLine;
+import com.argbox.batch.BatchParser;
+import com.argbox.batch.BatchReport;
+import com.argbox.completion.CompletionEngine;
+import com.argbox.completion.CompletionScripts;
+import com.argbox.completion.ValueProvider;
+import com.argbox.completion.ValueProviders;
 import com.argbox.exception.ArgBoxException;
+import com.argbox.exception.StacklessArgBoxException;
+import com.argbox.instrument.ParseCounters;
+import com.argbox.instrument.ParseListener;
+import com.argbox.instrument.ParsePhase;
 import com.argbox.model.Argument;
+import com.argbox.model.FallbackSource;
+import com.argbox.model.ParsedArgument;
+import com.argbox.model.Positional;
+import com.argbox.model.Subcommand;
+import com.argbox.model.TypedArgument;
+import com.argbox.spec.SpecFileLoader;
+import com.argbox.validation.CachedValidator;
+import com.argbox.validation.ValidationExecutors;
+import com.argbox.validation.ValueRules;
+import com.sun.management.ThreadMXBean;
 
 import junit.framework.Assert;
 
@@ -45,6 +97,858 @@ public class ArgBoxTester {
 				helpText);
 	}
 
+	@Test
+	public void testResolveCommandLine() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, ageArg);
+		callLongRegister(argBox, verboseArg);
+		argBox.resolveCommandLine("--name", "Bob", "-ag", "42", "-v");
+		try {
+			argBox.resolveCommandLine("--name", "Bob", "-ag", "42", "--unknown");
+			Assert.fail("The unknown argument should have been reported as a leftover.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("The argument --unknown was not used.", e.getErrors().get(1));
+		}
+	}
+
+	@Test(expected = ArgBoxException.class)
+	public void testRegisterDuplicateCall() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		argBox.register("Other", "-ot", "--name", "Same long call as Name.");
+	}
+
+	@Test
+	public void testCompiledSpecParse() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, ageArg);
+		callLongRegister(argBox, verboseArg);
+		final ArgSpec spec = argBox.compile();
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<ParsedCommandLine>> futures = new ArrayList<>();
+			for (int i = 1; i <= 100; i++) {
+				final String age = String.valueOf(i);
+				futures.add(executor.submit(() -> spec.parse("--name", "Bob", "--age", age)));
+			}
+			for (int i = 1; i <= 100; i++) {
+				final ParsedCommandLine commandLine = futures.get(i - 1).get();
+				Assert.assertEquals(String.valueOf(i), commandLine.getValue("Age"));
+				Assert.assertFalse(commandLine.isPresent("Verbose"));
+			}
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			spec.parse("--name", "Bob", "--age", "-3");
+			Assert.fail("The negative age should not have been validated.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("The value -3 for the argument --age is not valid !", e.getErrors().get(1));
+		}
+	}
+
+	@Test
+	public void testShortCircuit() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		argBox.registerShortCircuit("Version", "-vrs", "--version", "Prints out the version and exits.");
+		Assert.assertFalse(argBox.isHelpNeeded("--name", "--helpful"));
+		Assert.assertFalse(argBox.isHelpNeeded("-h", "lp"));
+		Assert.assertTrue(argBox.isHelpNeeded("--name", "Bob", "-hlp"));
+		Assert.assertNull(argBox.findShortCircuitArgument("--name", "Bob"));
+		Assert.assertEquals("Version", argBox.findShortCircuitArgument("--name", "--version").getArgName());
+		argBox.resolveCommandLine("--version", "leftover");
+		Assert.assertTrue(argBox.getParsedCommandLine().isShortCircuited());
+		Assert.assertTrue(argBox.getParsedCommandLine().isPresent("Version"));
+	}
+
+	@Test
+	public void testGetHelpColumns() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, verboseArg);
+		final String helpText = argBox.getHelp(50);
+		final StringWriter writer = new StringWriter();
+		argBox.getHelp(writer, 50);
+		Assert.assertEquals(helpText, writer.toString());
+		Assert.assertEquals("HELP MANUAL\n\n"
+				+ "  -hlp, --help   If present on the command line,\n"
+				+ "                 the program will print out the\n"
+				+ "                 help manual and exit.\n"
+				+ "                 #helpception\n"
+				+ "  -nm, --name    This is the name. (mandatory)\n"
+				+ "  -v, --verbose  Flag to trigger verbose mode.\n"
+				+ "                 (no value)\n",
+				helpText);
+		Assert.assertSame(argBox.getHelp(), argBox.getHelp());
+	}
+
+	@Test
+	public void testBatchParser() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, ageArg);
+		callLongRegister(argBox, verboseArg);
+		final Path file = Files.createTempFile("argbox", ".log");
+		try {
+			Files.write(file, Arrays.asList("--name Bob --age 42 -v", "", "--name Bill\t-ag -1 extra",
+					"--name Alice --age 7", "-hlp", "--name \"Bob Doe\" --age 'forty two'"));
+			final BatchReport report = new BatchParser(argBox.compile()).parse(file);
+			Assert.assertEquals(5, report.getLineCount());
+			Assert.assertEquals(3, report.getFailedLineCount());
+			Assert.assertEquals(Long.valueOf(4), report.getUsageCounts().get("Name"));
+			Assert.assertEquals(Long.valueOf(1), report.getUsageCounts().get("HELP"));
+			Assert.assertEquals(Long.valueOf(1), report.getValidationFailureCounts().get("Name"));
+			Assert.assertEquals(Long.valueOf(2), report.getValidationFailureCounts().get("Age"));
+			Assert.assertEquals(Long.valueOf(1), report.getLeftoverCounts().get("extra"));
+			Assert.assertNull(report.getLeftoverCounts().get("two'"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testBatchParserSubcommands() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		argBox.register(verboseArg);
+		argBox.register(new Argument("Level", "-lv", "--level", "This is the level.", false, false, value -> {
+			if ("x".equals(value)) {
+				throw new IllegalArgumentException("Not a level.");
+			}
+			return true;
+		}));
+		argBox.registerSubcommand(new Subcommand("push", "Pushes the changes.", () -> {
+			final ArgBox push = new ArgBox();
+			try {
+				push.register(nameArg);
+			} catch (final ArgBoxException e) {
+				throw new IllegalStateException(e);
+			}
+			return push;
+		}));
+		final Path file = Files.createTempFile("argbox", ".log");
+		try {
+			Files.write(file, Arrays.asList("-v push --name Bob", "push -v", "push --name Alice", "--level x",
+					"--level 3"));
+			final BatchReport report = new BatchParser(argBox.compile()).parse(file);
+			Assert.assertEquals(5, report.getLineCount());
+			Assert.assertEquals(3, report.getFailedLineCount());
+			Assert.assertEquals(Long.valueOf(2), report.getUsageCounts().get("Verbose"));
+			Assert.assertEquals(Long.valueOf(2), report.getUsageCounts().get("Level"));
+			Assert.assertEquals(Long.valueOf(2), report.getUsageCounts().get("Name"));
+			Assert.assertEquals(Long.valueOf(1), report.getValidationFailureCounts().get("Name"));
+			Assert.assertEquals(Long.valueOf(1), report.getValidationFailureCounts().get("Level"));
+		} finally {
+			Files.delete(file);
+		}
+		// The validator throwing an exception invalidates the value instead of escaping the parse.
+		final ParseResult result = argBox.compile().tryParse(false, "--level", "x");
+		Assert.assertEquals(1, result.getErrors().size());
+		Assert.assertEquals(ParseError.Kind.INVALID_VALUE, result.getErrors().get(0).getKind());
+	}
+
+	@Test
+	public void testArgumentFiles() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, ageArg);
+		callLongRegister(argBox, verboseArg);
+		argBox.setArgumentFilesEnabled(true);
+		final Path directory = Files.createTempDirectory("argbox");
+		final Path main = directory.resolve("main.args");
+		final Path nested = directory.resolve("nested.args");
+		try {
+			Files.write(main, Arrays.asList("# The name and the nested file", "--name 'Bob the \"builder\"'",
+					"@nested.args"));
+			Files.write(nested, Arrays.asList("--age \"4\"2 -v"));
+			argBox.resolveCommandLine(false, "@" + main, "trailing\\ path");
+			final ParsedCommandLine commandLine = argBox.getParsedCommandLine();
+			Assert.assertEquals("Bob the \"builder\"", commandLine.getValue("Name"));
+			Assert.assertTrue(commandLine.isPresent("Verbose"));
+			Assert.assertEquals(Arrays.asList("trailing\\ path"), commandLine.getLeftovers());
+
+			Files.write(nested, Arrays.asList("--age 42 @main.args"));
+			try {
+				argBox.resolveCommandLine("@" + main);
+				Assert.fail("The argument files including each other should have been rejected.");
+			} catch (final ArgBoxException e) {
+				Assert.assertEquals("FileSystemLoopException : " + main.toRealPath(), e.getErrors().get(1));
+			}
+		} finally {
+			Files.delete(main);
+			Files.delete(nested);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testTypedArguments() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		argBox.register(TypedArgument.ofInt("Age", "-ag", "--age", "This is the age.", true, ValueRules.range(1, 150)));
+		argBox.register(TypedArgument.ofDouble("Ratio", "-rt", "--ratio", "This is the ratio.", false, null));
+		argBox.register(TypedArgument.ofEnum("Unit", "-un", "--unit", "This is the unit.", false, TimeUnit.class,
+				ValueRules.oneOf(EnumSet.of(TimeUnit.SECONDS, TimeUnit.MINUTES))));
+		argBox.register(TypedArgument.ofDuration("Timeout", "-to", "--timeout", "This is the timeout.", false, null));
+		argBox.resolveCommandLine("--age", "42", "-rt", "0.5", "--unit", "seconds", "--timeout", "90s");
+		final ParsedCommandLine commandLine = argBox.getParsedCommandLine();
+		Assert.assertEquals(42, commandLine.getInt("Age", 0));
+		Assert.assertEquals(0.5, commandLine.getDouble("Ratio", 0), 0);
+		Assert.assertEquals(TimeUnit.SECONDS, commandLine.getEnum("Unit", TimeUnit.class));
+		Assert.assertEquals(Duration.ofSeconds(90), commandLine.getDuration("Timeout"));
+		try {
+			argBox.resolveCommandLine("--age", "151", "--unit", "hours", "--timeout", "PT1M");
+			Assert.fail("The age and unit should not have been validated.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals(Arrays.asList("One or more arguments have errors with their values !",
+					"The value 151 for the argument --age is not valid !",
+					"The value hours for the argument --unit is not valid !"), e.getErrors());
+		}
+	}
+
+	@Test
+	public void testCachedValidator() throws ArgBoxException {
+		final AtomicInteger calls = new AtomicInteger();
+		final CachedValidator validator = new CachedValidator(value -> {
+			calls.incrementAndGet();
+			return value.startsWith("B");
+		}, 2);
+		final ArgBox argBox = new ArgBox();
+		argBox.register("Name", "-nm", "--name", "This is the name.", true, false, validator);
+		argBox.resolveCommandLine("--name", "Bob");
+		argBox.resolveCommandLine("--name", "Bob");
+		argBox.resolveCommandLine("--name", "Bill");
+		argBox.resolveCommandLine("--name", "Ben");
+		argBox.resolveCommandLine("--name", "Bob");
+		Assert.assertEquals(4, calls.get());
+		Assert.assertEquals(1, validator.getHitCount());
+		Assert.assertEquals(4, validator.getMissCount());
+		Assert.assertEquals(2, validator.getEvictionCount());
+	}
+
+	@Test
+	public void testConcurrentValidation() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		// Each validator waits for the two others to start, so they only pass when they run concurrently.
+		final CountDownLatch started = new CountDownLatch(3);
+		final CountDownLatch released = new CountDownLatch(1);
+		final Predicate<String> validator = value -> {
+			try {
+				switch (value) {
+				case "together":
+					started.countDown();
+					return started.await(10, TimeUnit.SECONDS);
+				case "blocked":
+					released.await();
+					return true;
+				default:
+					return !"x".equals(value);
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		};
+		argBox.register("First", "-fs", "--first", "Waits.", false, false, validator);
+		argBox.register("Second", "-sc", "--second", "Waits.", false, false, validator);
+		argBox.register("Third", "-th", "--third", "Waits.", false, false, validator);
+		argBox.register(TypedArgument.ofInt("Count", "-ct", "--count", "This is the count.", false, null));
+		argBox.setValidationExecutor(ValidationExecutors.defaultExecutor(), Duration.ofSeconds(20));
+		argBox.resolveCommandLine("--first", "together", "--second", "together", "--third", "together");
+		try {
+			argBox.setValidationExecutor(ValidationExecutors.defaultExecutor(), Duration.ofMillis(50));
+			argBox.resolveCommandLine("--first", "blocked", "--second", "ok", "--third", "x");
+			Assert.fail("The first validator should have timed out.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals(Arrays.asList("One or more arguments have errors with their values !",
+					"The validation of the value blocked for the argument --first timed out !",
+					"The value x for the argument --third is not valid !"), e.getErrors());
+		} finally {
+			released.countDown();
+		}
+		// The converted values are copied back in command line order from a single thread.
+		final ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		try {
+			argBox.setValidationExecutor(singleThread, Duration.ofSeconds(20));
+			argBox.resolveCommandLine("--first", "a", "--second", "b", "--third", "c", "--count", "7");
+			Assert.assertEquals(7, argBox.getParsedCommandLine().getInt("Count", 0));
+		} finally {
+			singleThread.shutdownNow();
+		}
+		// A validation the executor never starts times out.
+		argBox.setValidationExecutor(task -> {
+		}, Duration.ofMillis(50));
+		final ParseResult timedOut = argBox.compile().tryParse(false, "--first", "a");
+		Assert.assertEquals(ParseError.Kind.VALIDATION_TIMEOUT, timedOut.getErrors().get(0).getKind());
+		// A validation the executor rejects runs on the parsing thread.
+		final List<Executor> executors = Arrays.asList(task -> {
+			throw new RejectedExecutionException();
+		}, singleThread);
+		for (final Executor executor : executors) {
+			argBox.setValidationExecutor(executor, Duration.ofMillis(50));
+			final ParseResult result = argBox.compile().tryParse(false, "--first", "x", "--count", "8");
+			Assert.assertEquals(ParseError.Kind.INVALID_VALUE, result.getErrors().get(0).getKind());
+			argBox.setValidationExecutor(executor, null);
+			argBox.resolveCommandLine("--first", "a", "--count", "8");
+			Assert.assertEquals(8, argBox.getParsedCommandLine().getInt("Count", 0));
+		}
+	}
+
+	@Test
+	public void testRegisterAll() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		argBox.registerAll(Arrays.asList(nameArg, ageArg));
+		try {
+			argBox.registerAll(Arrays.asList(verboseArg,
+					new Argument("Verbose", "-vb", "verbose", "Same name, bad long call.", false, true, null),
+					new Argument("Other", "-nm", "--other", "Same short call as Name.", false, true, null)));
+			Assert.fail("The batch should have been rejected.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals(Arrays.asList("Some arguments cannot be registered !",
+					"[Verbose] longCall must start with '--' !",
+					"An argument named Verbose has already been registered !",
+					"An argument using the shortCall -nm has already been registered !"), e.getErrors());
+		}
+		argBox.resolveCommandLine("--name", "Bob", "--age", "42");
+		Assert.assertNull(argBox.compile().getArgument("Verbose"));
+		// A rejected registration does not keep the name and the calls of the argument.
+		try {
+			argBox.register(new Argument("Quiet", "-qt", "quiet", "Bad long call.", false, true, null));
+			Assert.fail("The argument should have been rejected.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("[Quiet] longCall must start with '--' !", e.getMessage());
+		}
+		argBox.register(new Argument("Quiet", "-qt", "--quiet", "Fixed long call.", false, true, null));
+		argBox.resolveCommandLine("--name", "Bob", "--age", "42", "-qt");
+		Assert.assertTrue(argBox.getParsedCommandLine().isPresent("Quiet"));
+	}
+
+	@Test
+	public void testSpecFileLoader() throws Exception {
+		final Path directory = Files.createTempDirectory("argbox");
+		final Path specFile = directory.resolve("spec.properties");
+		final Path cacheFile = directory.resolve("spec.properties.cache");
+		try {
+			Files.write(specFile, Arrays.asList("arguments = name, verbose", "name.shortCall = -nm",
+					"name.longCall = --name", "name.help = This is the name.", "name.mandatory = true",
+					"name.validator = regex:B.*", "verbose.shortCall = -v", "verbose.longCall = --verbose",
+					"verbose.help = Flag to trigger verbose mode.", "verbose.flag = true"));
+			final String help = SpecFileLoader.load(specFile).getHelp();
+			Assert.assertTrue(Files.isRegularFile(cacheFile));
+			final ArgBox cachedArgBox = SpecFileLoader.load(specFile);
+			Assert.assertEquals(help, cachedArgBox.getHelp());
+			cachedArgBox.resolveCommandLine("--name", "Bob", "-v");
+			try {
+				cachedArgBox.resolveCommandLine("--name", "Alice");
+				Assert.fail("The regex validator should have been restored from the cache.");
+			} catch (final ArgBoxException e) {
+				Assert.assertEquals("The value Alice for the argument --name is not valid !", e.getErrors().get(1));
+			}
+			// A corrupt count or string length makes the spec file be parsed again.
+			for (final int offset : new int[] { 24, 28 }) {
+				final byte[] cache = Files.readAllBytes(cacheFile);
+				ByteBuffer.wrap(cache).putInt(offset, Integer.MAX_VALUE);
+				Files.write(cacheFile, cache);
+				Assert.assertEquals(help, SpecFileLoader.load(specFile).getHelp());
+			}
+			// So does an unknown validator, even with a matching checksum.
+			final byte[] cache = Files.readAllBytes(cacheFile);
+			final int validator = new String(cache, StandardCharsets.ISO_8859_1).indexOf("regex:B.*");
+			cache[validator] = 'R';
+			final CRC32 crc = new CRC32();
+			crc.update(cache, 24, cache.length - 24);
+			ByteBuffer.wrap(cache).putLong(16, crc.getValue());
+			Files.write(cacheFile, cache);
+			final ArgBox reloadedArgBox = SpecFileLoader.load(specFile);
+			try {
+				reloadedArgBox.resolveCommandLine("--name", "Alice");
+				Assert.fail("The regex validator should have been read from the spec file.");
+			} catch (final ArgBoxException e) {
+				Assert.assertEquals("The value Alice for the argument --name is not valid !", e.getErrors().get(1));
+			}
+
+			Files.write(specFile, Arrays.asList("arguments = name", "name.shortCall = -nm",
+					"name.validator = unknown"));
+			try {
+				SpecFileLoader.load(specFile);
+				Assert.fail("The changed spec file should have been parsed again.");
+			} catch (final ArgBoxException e) {
+				Assert.assertEquals(Arrays.asList("The spec file is invalid !",
+						"[name] shortCall, longCall and help are required !", "[name] Unknown validator unknown !"),
+						e.getErrors());
+			}
+		} finally {
+			Files.deleteIfExists(cacheFile);
+			Files.delete(specFile);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testCallMatching() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, verboseArg);
+		argBox.register("Version", "-vn", "--version", "Prints the version.", false, true);
+		try {
+			argBox.resolveCommandLine("--name", "Bob", "--verbsoe");
+			Assert.fail("The mistyped argument should have been reported as a leftover.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("The argument --verbsoe was not used. Did you mean --verbose ?", e.getErrors().get(1));
+		}
+		argBox.setAbbreviationsEnabled(true);
+		argBox.resolveCommandLine("--na", "Bob", "--verb");
+		Assert.assertTrue(argBox.getParsedCommandLine().isPresent("Verbose"));
+		try {
+			argBox.resolveCommandLine("--name", "Bob", "--ver");
+			Assert.fail("An abbreviation shared by two arguments should match none.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("The argument --ver was not used.", e.getErrors().get(1));
+		}
+	}
+
+	@Test
+	public void testParsedArgumentViews() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, ageArg);
+		callLongRegister(argBox, verboseArg);
+		final ParsedCommandLine commandLine = argBox.compile().parse("-v", "--name", "Bob", "-ag", "42", "-nm",
+				"Bill");
+		final List<String> order = new ArrayList<>();
+		for (final ParsedArgument parsedArg : commandLine.getParsedArguments()) {
+			order.add(parsedArg.getArgName());
+		}
+		Assert.assertEquals(Arrays.asList("Verbose", "Name", "Age"), order);
+		Assert.assertEquals("Bill", commandLine.getValue("Name"));
+		Assert.assertEquals("-nm", commandLine.getParsedArgument("Name").getCommandArg());
+		Assert.assertSame(commandLine.getParsedArgument("Name"), commandLine.getParsedArgument("Name"));
+		Assert.assertNull(commandLine.getParsedArgument("HELP"));
+	}
+
+	@Test
+	public void testParseCounters() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, nameArg);
+		callLongRegister(argBox, verboseArg);
+		final ParseCounters counters = new ParseCounters();
+		final List<ParsePhase> phases = new ArrayList<>();
+		argBox.setParseListener(ParseListener.of(counters, new ParseListener() {
+
+			@Override
+			public void phaseCompleted(final ParsePhase phase, final long durationNanos) {
+				phases.add(phase);
+			}
+
+		}));
+		argBox.resolveCommandLine(false, "--name", "Bob", "extra");
+		Assert.assertEquals(EnumSet.allOf(ParsePhase.class), EnumSet.copyOf(phases));
+		for (final String[] args : Arrays.asList(new String[] { "-v" }, new String[] { "--name", "Alice" },
+				new String[] { "--name", "Bob", "unused" })) {
+			try {
+				argBox.resolveCommandLine(args);
+				Assert.fail("The command line " + Arrays.toString(args) + " should have been rejected.");
+			} catch (final ArgBoxException e) {
+				// Counted below.
+			}
+		}
+		Assert.assertEquals(4, counters.getParseCount());
+		Assert.assertEquals(3, counters.getFailureCount());
+		Assert.assertEquals(1, counters.getFailureCount(ParsePhase.CHECK_MANDATORY));
+		Assert.assertEquals(1, counters.getFailureCount(ParsePhase.VALIDATE));
+		Assert.assertEquals(1, counters.getFailureCount(ParsePhase.CHECK_LEFTOVERS));
+		Assert.assertEquals(2, counters.getLeftoverCount());
+	}
+
+	@Test
+	public void testFallbackSources() throws Exception {
+		final Path propertiesFile = Files.createTempFile("argbox", ".properties");
+		try {
+			Files.write(propertiesFile, Arrays.asList("verbose = true", "name = Alice"));
+			final ArgBox argBox = new ArgBox();
+			argBox.register(nameArg.withFallbacks(FallbackSource.systemProperty("argbox.test.name"),
+					FallbackSource.propertiesFile("name")));
+			argBox.register(verboseArg.withFallbacks(FallbackSource.environment("ARGBOX_TEST_VERBOSE"),
+					FallbackSource.propertiesFile("verbose")));
+			argBox.setPropertiesFile(propertiesFile);
+			System.setProperty("argbox.test.name", "Bob");
+			argBox.resolveCommandLine();
+			Assert.assertEquals("Bob", argBox.getParsedCommandLine().getValue("Name"));
+			Assert.assertTrue(argBox.getParsedCommandLine().isPresent("Verbose"));
+			argBox.resolveCommandLine("--name", "Bill");
+			Assert.assertEquals("Bill", argBox.getParsedCommandLine().getValue("Name"));
+			System.clearProperty("argbox.test.name");
+			try {
+				argBox.resolveCommandLine();
+				Assert.fail("The value of the properties file should have been validated.");
+			} catch (final ArgBoxException e) {
+				Assert.assertEquals("The value Alice for the argument name (properties file) is not valid !",
+						e.getErrors().get(1));
+			}
+		} finally {
+			System.clearProperty("argbox.test.name");
+			Files.delete(propertiesFile);
+		}
+	}
+
+	@Test
+	public void testPositionals() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		callLongRegister(argBox, verboseArg);
+		final List<String> paths = new ArrayList<>();
+		argBox.registerPositional(new Positional("paths", "The files to process.", 1, 3, paths::add));
+		argBox.resolveCommandLine("a.txt", "-v", "-", "b.txt");
+		Assert.assertEquals(Arrays.asList("a.txt", "-", "b.txt"), paths);
+		Assert.assertEquals(3, argBox.getParsedCommandLine().getPositionalCount());
+		Assert.assertTrue(argBox.getParsedCommandLine().getPositionals().isEmpty());
+		Assert.assertTrue(argBox.getHelp().endsWith(
+				"- paths : positional\nThe files to process.\nThis argument takes between 1 and 3 values.\n\n"));
+		try {
+			argBox.resolveCommandLine("-v");
+			Assert.fail("A positional value should have been required.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("At least 1 values are required for paths, 0 found !", e.getErrors().get(1));
+		}
+		paths.clear();
+		try {
+			argBox.resolveCommandLine("a", "b", "c", "d", "--unknown");
+			Assert.fail("The positional values beyond the max arity should have been reported.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("At most 3 values are allowed for paths, 4 found !", e.getErrors().get(1));
+		}
+		Assert.assertEquals(Arrays.asList("a", "b", "c"), paths);
+	}
+
+	@Test
+	public void testParseResult() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		argBox.registerAll(Arrays.asList(nameArg, ageArg, verboseArg));
+		final ParseResult result = argBox.tryResolveCommandLine(true, "-v", "--name", "Alice", "--colour");
+		Assert.assertFalse(result.isSuccess());
+		Assert.assertNull(result.getCommandLine());
+		final List<ParseError> errors = result.getErrors();
+		Assert.assertEquals(3, errors.size());
+		Assert.assertEquals(ParseError.Kind.MISSING_ARGUMENT, errors.get(0).getKind());
+		Assert.assertEquals("Age", errors.get(0).getArgument().getArgName());
+		Assert.assertEquals(-1, errors.get(0).getPosition());
+		Assert.assertEquals(ParseError.Kind.INVALID_VALUE, errors.get(1).getKind());
+		Assert.assertEquals("Alice", errors.get(1).getToken());
+		Assert.assertEquals(2, errors.get(1).getPosition());
+		Assert.assertEquals(ParseError.Kind.UNUSED_ARGUMENT, errors.get(2).getKind());
+		Assert.assertEquals("--colour", errors.get(2).getToken());
+		Assert.assertEquals(3, errors.get(2).getPosition());
+		try {
+			result.getCommandLineOrThrow();
+			Assert.fail("The errors should have been thrown.");
+		} catch (final StacklessArgBoxException e) {
+			Assert.assertEquals(0, e.getStackTrace().length);
+			Assert.assertEquals("The command line is invalid !", e.getErrors().get(0));
+			Assert.assertEquals(4, e.getErrors().size());
+		}
+		Assert.assertTrue(argBox.tryResolveCommandLine(true, "--name", "Bill", "-ag", "12").isSuccess());
+		Assert.assertEquals("12", argBox.getParsedCommandLine().getValue("Age"));
+	}
+
+	@Test
+	public void testCommandString() throws ArgBoxException {
+		final ArgBox argBox = new ArgBox();
+		argBox.registerAll(Arrays.asList(nameArg, ageArg, verboseArg));
+		argBox.resolveCommandString(true, CharBuffer.wrap(" -v  --name \"Bill \\\"The Kid\\\"\" -ag 4'2'\t"));
+		Assert.assertTrue(argBox.getParsedCommandLine().isPresent("Verbose"));
+		Assert.assertEquals("Bill \"The Kid\"", argBox.getParsedCommandLine().getValue("Name"));
+		Assert.assertEquals("42", argBox.getParsedCommandLine().getValue("Age"));
+		argBox.resolveCommandString(false, "--name B\\ ob -ag 3 extra ''");
+		Assert.assertEquals("B ob", argBox.getParsedCommandLine().getValue("Name"));
+		Assert.assertEquals(Arrays.asList("extra", ""), argBox.getParsedCommandLine().getLeftovers());
+		final ParseResult result = argBox.compile().tryParseCommandString(true, "--name 'Bill -ag 3");
+		Assert.assertEquals(ParseError.Kind.UNCLOSED_QUOTE, result.getErrors().get(0).getKind());
+		Assert.assertEquals("The quote at index 7 is never closed !", result.getErrors().get(0).getMessage());
+	}
+
+	@Test
+	public void testSubcommands() throws ArgBoxException {
+		final AtomicInteger built = new AtomicInteger();
+		final ArgBox argBox = new ArgBox();
+		argBox.register(verboseArg);
+		argBox.registerSubcommand(new Subcommand("push", "Pushes the changes.", () -> {
+			built.incrementAndGet();
+			final ArgBox push = new ArgBox();
+			try {
+				push.register(nameArg);
+			} catch (final ArgBoxException e) {
+				throw new IllegalStateException(e);
+			}
+			return push;
+		}));
+		argBox.registerSubcommand(new Subcommand("fetch", "Fetches the changes.", () -> {
+			throw new IllegalStateException("The fetch subcommand should never be built.");
+		}));
+		Assert.assertTrue(argBox.getHelp().endsWith("- push : subcommand\nPushes the changes.\n\n"
+				+ "- fetch : subcommand\nFetches the changes.\n\n"));
+		Assert.assertEquals(0, built.get());
+		argBox.resolveCommandLine("-v", "push", "--name", "Bill");
+		final ParsedCommandLine commandLine = argBox.getParsedCommandLine();
+		Assert.assertEquals(Arrays.asList("push"), commandLine.getSpec().getSubcommandPath());
+		Assert.assertTrue(commandLine.isPresent("Verbose"));
+		Assert.assertEquals("Bill", commandLine.getValue("Name"));
+		argBox.resolveCommandLine("push", "-nm", "Bob", "-v");
+		Assert.assertTrue(argBox.getParsedCommandLine().isPresent("Verbose"));
+		final ParsedCommandLine fromString = argBox.compile().parseCommandString(true, "-v push --name Bill");
+		Assert.assertEquals(Arrays.asList("push"), fromString.getSpec().getSubcommandPath());
+		Assert.assertEquals("Bill", fromString.getValue("Name"));
+		Assert.assertEquals(1, built.get());
+		final String pushHelp = argBox.getSubcommandHelp("push");
+		Assert.assertTrue(pushHelp.contains("--name") && pushHelp.contains("--verbose"));
+		Assert.assertFalse(pushHelp.contains("fetch"));
+		try {
+			argBox.resolveCommandLine("--name", "Bill", "push");
+			Assert.fail("The subcommand arguments should not be accepted before the subcommand.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("The argument --name is required !", e.getErrors().get(1));
+		}
+		// A subcommand colliding with an inherited argument is reported, compiled only once.
+		final AtomicInteger collidingBuilt = new AtomicInteger();
+		argBox.registerSubcommand(new Subcommand("pull", "Pulls the changes.", () -> {
+			collidingBuilt.incrementAndGet();
+			final ArgBox pull = new ArgBox();
+			try {
+				pull.register(new Argument("Quiet", "-v", "--quiet", "Same short call as Verbose.", false, true,
+						null));
+			} catch (final ArgBoxException e) {
+				throw new IllegalStateException(e);
+			}
+			return pull;
+		}));
+		final ArgSpec spec = argBox.compile();
+		for (int i = 0; i < 2; i++) {
+			final ParseResult result = spec.tryParseCommandString(false, "-v pull");
+			Assert.assertEquals(1, result.getErrors().size());
+			Assert.assertEquals(ParseError.Kind.SUBCOMMAND, result.getErrors().get(0).getKind());
+			Assert.assertEquals("pull", result.getErrors().get(0).getToken());
+			Assert.assertEquals(1, result.getErrors().get(0).getPosition());
+		}
+		Assert.assertEquals(1, collidingBuilt.get());
+	}
+
+	@Test
+	public void testParseContextAllocations() throws ArgBoxException {
+		final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+		final ArgBox argBox = new ArgBox();
+		argBox.registerAll(Arrays.asList(nameArg, ageArg, verboseArg));
+		final ArgSpec spec = argBox.compile();
+		final ParseContext context = new ParseContext();
+		final String[] args = { "--name", "Bill", "-ag", "42", "-v" };
+		final String commandLine = "--name Bill -ag 42 -v";
+		final ParsedCommandLine first = spec.parse(context, true, args);
+		Assert.assertSame(first, spec.parse(context, true, args));
+		Assert.assertEquals("42", first.getValue("Age"));
+		for (int i = 0; i < 20000; i++) {
+			spec.parse(context, true, args);
+			spec.parseCommandString(context, true, commandLine);
+		}
+		final long threadId = Thread.currentThread().getId();
+		final int parses = 10000;
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < parses; i++) {
+			spec.parse(context, true, args);
+		}
+		long perParse = (threads.getThreadAllocatedBytes(threadId) - before) / parses;
+		Assert.assertTrue("A parse allocated " + perParse + " bytes.", perParse < 16);
+		before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < parses; i++) {
+			spec.parseCommandString(context, true, commandLine);
+		}
+		perParse = (threads.getThreadAllocatedBytes(threadId) - before) / parses;
+		// Only the two values become Strings.
+		Assert.assertTrue("A command string parse allocated " + perParse + " bytes.", perParse < 160);
+		Assert.assertEquals("Bill", spec.parseCommandString(context, true, commandLine).getValue("Name"));
+		// Only the results of the last spec are kept by the context.
+		final ArgBox otherArgBox = new ArgBox();
+		otherArgBox.register(verboseArg);
+		otherArgBox.compile().parse(context, true, "-v");
+		Assert.assertNotSame(first, spec.parse(context, true, args));
+	}
+
+	@Test
+	public void testCompletion() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		argBox.register(nameArg);
+		argBox.register(verboseArg);
+		argBox.register(TypedArgument.ofEnum("Unit", "-un", "--unit", "This is the unit.", false, TimeUnit.class,
+				null));
+		final ArgSpec spec = argBox.compile();
+		final CompletionEngine engine = new CompletionEngine(spec);
+		Assert.assertEquals(Arrays.asList("--name"), engine.complete("--n"));
+		Assert.assertEquals(Arrays.asList("--help", "--unit", "--verbose", "-hlp", "-un", "-v"),
+				engine.complete("-nm", "Bob", "-"));
+		Assert.assertEquals(Arrays.asList("MILLISECONDS"), engine.complete("-v", "--unit", "MIL"));
+		final StringBuilder answer = new StringBuilder();
+		engine.answerQuery(new String[] { CompletionEngine.QUERY_COMMAND, "-v", "--u" }, answer);
+		Assert.assertEquals("--unit\n", answer.toString());
+
+		final AtomicInteger lookups = new AtomicInteger();
+		final Path cacheFile = Files.createTempDirectory("argbox").resolve("cache").resolve("names");
+		final ValueProvider names = ValueProviders.cached(cacheFile, Duration.ofHours(1), prefix -> {
+			lookups.incrementAndGet();
+			return Arrays.asList("Bill", "Bob", "Alice");
+		});
+		engine.setValueProvider("Name", names);
+		Assert.assertEquals(Arrays.asList("Bill", "Bob"), engine.complete("--name", "B"));
+		Assert.assertEquals(Arrays.asList("Alice"), engine.complete("--name", "A"));
+		Assert.assertEquals(1, lookups.get());
+		Assert.assertEquals(Arrays.asList("Bill", "Bob", "Alice"), Files.readAllLines(cacheFile));
+
+		final String bash = CompletionScripts.bash("my-tool", spec);
+		Assert.assertTrue(bash.contains("'-nm --name' '-v --verbose'"));
+		Assert.assertTrue(bash.contains("complete -o default -F _my_tool_complete 'my-tool'"));
+		Assert.assertTrue(CompletionScripts.zsh("my-tool", spec).contains("compdef _my_tool_complete 'my-tool'"));
+		Assert.assertTrue(CompletionScripts.fish("my-tool", spec).contains("-o 'nm' -l 'name' -d 'This is the name.'"));
+	}
+
+	@Test
+	public void testBashCompletionScript() throws Exception {
+		final Path bash = Paths.get("/bin/bash");
+		Assume.assumeTrue(Files.isExecutable(bash));
+		final ArgBox argBox = new ArgBox();
+		argBox.register(nameArg);
+		argBox.register(verboseArg);
+		final Path directory = Files.createTempDirectory("argbox");
+		final Path script = directory.resolve("my-tool.bash");
+		final Path query = directory.resolve("query");
+		try {
+			// The program is replaced by a function recording the words it is queried with.
+			Files.write(script, Arrays.asList(CompletionScripts.bash("my-tool", argBox.compile()),
+					"my-tool() { shift; printf '%s\\n' \"$@\" >> \"$QUERY\"; printf '%s\\n' --name=Bob --name=Bill; }",
+					"COMP_WORDS=(my-tool -v --name = Bo); COMP_CWORD=4; _my_tool_complete",
+					"printf '%s\\n' \"${COMPREPLY[@]}\"",
+					"COMP_WORDS=(my-tool --name =); COMP_CWORD=2; _my_tool_complete",
+					"printf '%s\\n' \"${COMPREPLY[@]}\""));
+			final ProcessBuilder builder = new ProcessBuilder(bash.toString(), script.toString());
+			builder.environment().put("QUERY", query.toString());
+			final Process process = builder.redirectErrorStream(true).start();
+			final List<String> output = new ArrayList<>();
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+				reader.lines().forEach(output::add);
+			}
+			Assert.assertEquals(0, process.waitFor());
+			// bash replaces only the part of the word after the '='.
+			Assert.assertEquals(Arrays.asList("Bob", "Bill", "=Bob", "=Bill"), output);
+			Assert.assertEquals(Arrays.asList("-v", "--name=Bo", "--name="), Files.readAllLines(query));
+		} finally {
+			Files.deleteIfExists(query);
+			Files.delete(script);
+			Files.delete(directory);
+		}
+	}
+
+	@Test
+	public void testConcurrentRegistration() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final AtomicInteger rejected = new AtomicInteger();
+		try {
+			final List<Future<?>> modules = new ArrayList<>();
+			for (int module = 0; module < 8; module++) {
+				final int moduleIndex = module;
+				modules.add(executor.submit(() -> {
+					for (int i = 0; i < 25; i++) {
+						final String option = "option" + moduleIndex + "x" + i;
+						argBox.register(new Argument(option, "-" + option, "--" + option, "An option.", false, true,
+								null), moduleIndex % 2);
+					}
+					try {
+						argBox.register(new Argument("Shared", "-sh", "--shared", "A shared option.", false, true,
+								null));
+					} catch (final ArgBoxException e) {
+						rejected.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			for (final Future<?> module : modules) {
+				module.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		Assert.assertEquals(7, rejected.get());
+		final ArgSpec spec = argBox.freeze();
+		Assert.assertSame(spec, argBox.compile());
+		final List<Argument> arguments = spec.getArguments();
+		Assert.assertEquals(202, arguments.size());
+		final List<Argument> highPriority = new ArrayList<>(arguments.subList(0, 100));
+		final List<Argument> lowPriority = new ArrayList<>(arguments.subList(100, 202));
+		highPriority.sort(null);
+		lowPriority.sort(null);
+		Assert.assertEquals(highPriority, arguments.subList(0, 100));
+		Assert.assertEquals(lowPriority, arguments.subList(100, 202));
+		for (final Argument argument : highPriority) {
+			Assert.assertEquals(1, (argument.getArgName().charAt(6) - '0') % 2);
+		}
+		try {
+			argBox.register(verboseArg);
+			Assert.fail("The frozen ArgBox should not accept arguments.");
+		} catch (final ArgBoxException e) {
+			Assert.assertEquals("The arguments are frozen, nothing more can be registered !", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testCompactSyntax() throws Exception {
+		final ArgBox argBox = new ArgBox();
+		argBox.register(verboseArg);
+		argBox.register(nameArg);
+		argBox.register(new Argument("Quiet", "-q", "--quiet", "This is quiet.", false, true, null));
+		argBox.registerPositional(new Positional("files", "The files.", 0, 5, null));
+		argBox.resolveCommandLine(false, "-vq", "--name=Bob", "-nm", "Bill");
+		Assert.assertEquals(Arrays.asList("-vq", "--name=Bob"), argBox.getParsedCommandLine().getLeftovers());
+
+		argBox.setCompactSyntaxEnabled(true);
+		argBox.resolveCommandLine("-vq", "--name=Bob", "--", "-v", "--name");
+		ParsedCommandLine commandLine = argBox.getParsedCommandLine();
+		Assert.assertTrue(commandLine.isPresent("Verbose") && commandLine.isPresent("Quiet"));
+		Assert.assertEquals("Bob", commandLine.getValue("Name"));
+		Assert.assertEquals("--name", commandLine.getParsedArgument("Name").getCommandArg());
+		Assert.assertEquals(Arrays.asList("-v", "--name"), commandLine.getPositionals());
+		argBox.resolveCommandLine(false, "-nmBill", "-qvx");
+		Assert.assertEquals("Bill", argBox.getParsedCommandLine().getValue("Name"));
+		Assert.assertFalse(argBox.getParsedCommandLine().isPresent("Quiet"));
+		Assert.assertEquals(Arrays.asList("-qvx"), argBox.getParsedCommandLine().getLeftovers());
+		commandLine = argBox.compile().parseCommandString(true, "-qnm Bob file.txt");
+		Assert.assertTrue(commandLine.isPresent("Quiet"));
+		Assert.assertEquals("Bob", commandLine.getValue("Name"));
+		Assert.assertEquals(Arrays.asList("file.txt"), commandLine.getPositionals());
+		// The completion reads the previous words the way the parse does.
+		final CompletionEngine engine = new CompletionEngine(argBox.compile());
+		engine.setValueProvider("Name", ValueProviders.of("Bob", "Bill"));
+		engine.setValueProvider("files", ValueProviders.of("-x.txt", "y.txt"));
+		final List<String> candidates = engine.complete("-vq", "-");
+		Assert.assertTrue(candidates.contains("--name"));
+		Assert.assertFalse(candidates.contains("-q") || candidates.contains("--verbose"));
+		Assert.assertEquals(Arrays.asList("Bob", "Bill"), engine.complete("-qnm", ""));
+		Assert.assertEquals(Arrays.asList("y.txt"), engine.complete("-qnmBob", "y"));
+		Assert.assertEquals(Arrays.asList(), engine.complete("--name=Bob", "--n"));
+		Assert.assertEquals(Arrays.asList("--name=Bob", "--name=Bill"), engine.complete("--name=B"));
+		Assert.assertEquals(Arrays.asList("-x.txt"), engine.complete("--", "-"));
+		// An invalid attached value is reported at the token of its call.
+		final ArgBox attachedArgBox = new ArgBox();
+		attachedArgBox.register(verboseArg);
+		attachedArgBox.register(new Argument("Name", "-n", "--name", "This is the name.", true, false,
+				str -> str.startsWith("B")));
+		attachedArgBox.setCompactSyntaxEnabled(true);
+		final ArgSpec attachedSpec = attachedArgBox.compile();
+		for (final String[] args : new String[][] { { "-v", "--name=bad" }, { "-v", "-nbad" }, { "-v", "-vnbad" } }) {
+			final List<ParseError> errors = attachedSpec.tryParse(true, args).getErrors();
+			Assert.assertEquals(ParseError.Kind.INVALID_VALUE, errors.get(0).getKind());
+			Assert.assertEquals("bad", errors.get(0).getToken());
+			Assert.assertEquals(1, errors.get(0).getPosition());
+		}
+		Assert.assertEquals(2, attachedSpec.tryParse(true, "-v", "-vn", "bad").getErrors().get(0).getPosition());
+	}
+
 	private void callLongRegister(final ArgBox argBox, final Argument arg) throws ArgBoxException {
 		argBox.register(arg.getArgName(), arg.getShortCall(), arg.getLongCall(),
 				arg.getHelpLine(), arg.isMandatory(), arg.isValueNotRequired(), arg.getValidator());